@@ -1,25 +1,46 @@
 package com.pdfconverter.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pdfconverter.api.dto.ApiInfo;
 import com.pdfconverter.api.dto.ConversionResponse;
+import com.pdfconverter.api.dto.JobStatusResponse;
 import com.pdfconverter.api.model.Job;
+import com.pdfconverter.api.service.ConversionQueue;
 import com.pdfconverter.api.service.ConversionService;
 import com.pdfconverter.api.service.FileStorageService;
 import com.pdfconverter.api.service.JobManager;
+import com.pdfconverter.api.service.PageStatistics;
+import com.pdfconverter.api.service.ResultCache;
+import com.pdfconverter.api.service.UploadRejectedException;
+import com.pdfconverter.core.ConversionOptions;
+import com.pdfconverter.core.ImageIOEncoder;
+import com.pdfconverter.core.PageCache;
+import com.pdfconverter.core.PageSelection;
+import com.pdfconverter.core.PdfConverter;
+import com.pdfconverter.core.PdfRepairService;
+import com.pdfconverter.core.RepairCache;
+import com.pdfconverter.core.PngEncoder;
+import com.pdfconverter.core.RenderScheduler;
+import com.pdfconverter.core.ThumbnailRenderer;
+import com.pdfconverter.util.HashUtility;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST Controller for PDF conversion endpoints.
@@ -29,32 +50,92 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class ConversionController {
 
+    @Autowired
+    private ConversionQueue conversionQueue;
+
     @Autowired
     private ConversionService conversionService;
 
+    @Autowired
+    private ResultCache resultCache;
+
     @Autowired
     private FileStorageService fileStorageService;
 
     @Autowired
     private JobManager jobManager;
 
+    @Autowired
+    private RenderScheduler renderScheduler;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private PageStatistics pageStatistics;
+
+    @Autowired
+    private ThumbnailRenderer thumbnailRenderer;
+
+    @Autowired
+    private PdfRepairService pdfRepairService;
+
+    @Autowired
+    private RepairCache repairCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
-     * POST /api/convert - Upload and convert PDF to images
+     * POST /api/convert - Upload and convert PDF to images.
+     * With async=true the job is queued and 202 is returned immediately.
+     * The PDF is either a multipart "pdf" part or, for documents beyond the
+     * multipart limit, the raw request body (application/pdf) with the
+     * options as query parameters.
      */
-    @PostMapping(value = "/convert", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PostMapping(value = "/convert", consumes = {
+            MediaType.MULTIPART_FORM_DATA_VALUE,
+            MediaType.APPLICATION_PDF_VALUE,
+            MediaType.APPLICATION_OCTET_STREAM_VALUE})
     public ResponseEntity<?> convertPdf(
-            @RequestParam("pdf") MultipartFile pdfFile,
+            HttpServletRequest request,
+            @RequestParam(value = "pdf", required = false) MultipartFile pdfFile,
+            @RequestParam(value = "filename", defaultValue = "document.pdf") String uploadFilename,
             @RequestParam(value = "dpi", defaultValue = "150") int dpi,
-            @RequestParam(value = "format", defaultValue = "jpg") String format) {
+            @RequestParam(value = "format", defaultValue = "jpg") String format,
+            @RequestParam(value = "pages", defaultValue = "all") String pages,
+            @RequestParam(value = "colorMode", defaultValue = "color") String colorMode,
+            @RequestParam(value = "width", defaultValue = "0") int width,
+            @RequestParam(value = "height", defaultValue = "0") int height,
+            @RequestParam(value = "maxPixels", defaultValue = "0") long maxPixels,
+            @RequestParam(value = "quality", defaultValue = "0") int quality,
+            @RequestParam(value = "compression", defaultValue = "-1") int compression,
+            @RequestParam(value = "progressive", defaultValue = "false") boolean progressive,
+            @RequestParam(value = "pngFilter", required = false) String pngFilter,
+            @RequestParam(value = "deflateStrategy", required = false) String deflateStrategy,
+            @RequestParam(value = "reduceColors", defaultValue = "true") boolean reduceColors,
+            @RequestParam(value = "multipage", defaultValue = "false") boolean multipage,
+            @RequestParam(value = "tiffCompression", required = false) String tiffCompression,
+            @RequestParam(value = "async", defaultValue = "false") boolean async) {
 
         try {
             // Validate inputs
-            if (pdfFile.isEmpty()) {
+            String contentType = request.getContentType();
+            boolean rawUpload = contentType == null
+                    || !contentType.toLowerCase().startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+            if (rawUpload ? request.getContentLengthLong() == 0 : pdfFile == null || pdfFile.isEmpty()) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "PDF file is required"));
             }
 
-            String filename = pdfFile.getOriginalFilename();
+            long maxUploadBytes = fileStorageService.getMaxUploadBytes();
+            if (rawUpload && maxUploadBytes > 0 && request.getContentLengthLong() > maxUploadBytes) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                        .body(Map.of("error", "File exceeds the upload limit of "
+                                + (maxUploadBytes / (1024 * 1024)) + " MB"));
+            }
+
+            String filename = rawUpload ? uploadFilename : pdfFile.getOriginalFilename();
             if (filename == null || !filename.toLowerCase().endsWith(".pdf")) {
                 return ResponseEntity.badRequest()
                         .body(Map.of("error", "File must be a PDF"));
@@ -65,29 +146,157 @@ public class ConversionController {
                         .body(Map.of("error", "DPI must be between 50 and 600"));
             }
 
-            if (!format.equalsIgnoreCase("jpg") && !format.equalsIgnoreCase("png")) {
+            if (!format.equalsIgnoreCase("jpg") && !format.equalsIgnoreCase("png")
+                    && !format.equalsIgnoreCase("tiff")) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Format must be 'jpg', 'png' or 'tiff'"));
+            }
+
+            colorMode = colorMode.toLowerCase();
+            if (!ConversionOptions.isValidColorMode(colorMode)) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Color mode must be 'color', 'gray' or 'bilevel'"));
+            }
+
+            if (colorMode.equals(ConversionOptions.COLOR_MODE_BILEVEL) && format.equalsIgnoreCase("jpg")) {
                 return ResponseEntity.badRequest()
-                        .body(Map.of("error", "Format must be 'jpg' or 'png'"));
+                        .body(Map.of("error", "Bilevel output requires 'png' or 'tiff'"));
+            }
+
+            if (width < 0 || width > 10000 || height < 0 || height > 10000) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Width and height must be between 1 and 10000 pixels (0 = not set)"));
+            }
+
+            if (maxPixels < 0 || maxPixels > 100_000_000L) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "maxPixels must be at most 100000000"));
+            }
+
+            if (quality < 0 || quality > 100) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Quality must be between 1 and 100 (0 = encoder default)"));
+            }
+
+            if (compression < -1 || compression > 9) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Compression must be between 0 and 9 (-1 = encoder default)"));
+            }
+
+            if (multipage && !format.equalsIgnoreCase("tiff")) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Multi-page output requires format 'tiff'"));
+            }
+
+            try {
+                PngEncoder.parseStrategy(deflateStrategy, PngEncoder.parseFilter(pngFilter));
+                if (tiffCompression != null && !tiffCompression.equalsIgnoreCase("none")) {
+                    ImageIOEncoder.tiffCompressionType(tiffCompression,
+                            colorMode.equals(ConversionOptions.COLOR_MODE_BILEVEL));
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", e.getMessage()));
+            }
+
+            PageSelection pageSelection;
+            try {
+                pageSelection = PageSelection.parse(pages);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "Invalid pages: " + e.getMessage()));
+            }
+
+            // Shed load before writing the upload to disk
+            if (!conversionQueue.hasCapacity()) {
+                return queueFullResponse();
             }
 
             // Create job
-            Job job = jobManager.createJob(dpi, format.toLowerCase(), filename);
+            Job job = jobManager.createJob(dpi, format.toLowerCase(), filename, pageSelection.toString());
+            job.setWidth(width);
+            job.setHeight(height);
+            job.setMaxPixels(maxPixels);
+            job.setQuality(quality);
+            job.setCompressionLevel(compression);
+            job.setProgressive(progressive);
+            job.setPngFilter(pngFilter != null && !pngFilter.isBlank() ? pngFilter.toLowerCase() : null);
+            job.setDeflateStrategy(deflateStrategy != null && !deflateStrategy.isBlank()
+                    ? deflateStrategy.toLowerCase() : null);
+            job.setReduceColors(reduceColors);
+            job.setColorMode(colorMode);
+            job.setMultipage(multipage);
+            job.setTiffCompression(tiffCompression != null && !tiffCompression.isBlank()
+                    ? tiffCompression.toLowerCase() : null);
+            jobManager.saveJob(job);
 
-            // Save uploaded file
-            File savedPdf = fileStorageService.saveUploadedFile(pdfFile, job.getJobId());
+            // Until the job is queued (or answered from the cache) any failure removes it,
+            // so an aborted upload does not leave a job queued forever
+            Map<String, Object> cachedMetadata;
+            Future<Map<String, Object>> future = null;
+            try {
+                // Save uploaded file, hashing and validating it on the way to disk
+                File savedPdf;
+                try (InputStream in = rawUpload ? request.getInputStream() : pdfFile.getInputStream()) {
+                    savedPdf = fileStorageService.saveUploadedFile(in, job);
+                }
+
+                // Identical conversions are answered from the result cache without queueing
+                cachedMetadata = conversionService.tryServeFromCache(savedPdf, job);
+                if (cachedMetadata == null) {
+                    future = conversionQueue.submit(savedPdf, job);
+                }
+            } catch (UploadRejectedException e) {
+                discardJob(job);
+                return ResponseEntity.status(e.isTooLarge() ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.BAD_REQUEST)
+                        .body(Map.of("error", e.getMessage()));
+            } catch (RejectedExecutionException e) {
+                discardJob(job);
+                return queueFullResponse();
+            } catch (IOException | RuntimeException e) {
+                discardJob(job);
+                throw e;
+            }
 
-            // Convert PDF
-            Map<String, Object> metadata = conversionService.convertPdf(savedPdf, job);
+            if (cachedMetadata != null) {
+                ConversionResponse response = new ConversionResponse();
+                response.setJobId(job.getJobId());
+                response.setStatus("success");
+                response.setMetadata(cachedMetadata);
+                response.setDownloadUrl("/api/output/" + job.getJobId());
+                response.setStatusUrl("/api/status/" + job.getJobId());
+                return ResponseEntity.ok(response);
+            }
 
             // Build response
             ConversionResponse response = new ConversionResponse();
             response.setJobId(job.getJobId());
+            response.setStatusUrl("/api/status/" + job.getJobId());
+
+            if (async) {
+                response.setStatus(Job.STATUS_QUEUED);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+            }
+
+            // Synchronous mode: wait for the queued conversion to finish
+            Map<String, Object> metadata = future.get();
             response.setStatus("success");
             response.setMetadata(metadata);
             response.setDownloadUrl("/api/output/" + job.getJobId());
 
             return ResponseEntity.ok(response);
 
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "error", "Conversion failed",
+                            "message", String.valueOf(cause.getMessage())
+                    ));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Conversion interrupted"));
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of(
@@ -104,44 +313,181 @@ public class ConversionController {
     }
 
     /**
-     * GET /api/output/{jobId} - Download converted images as ZIP
+     * Removes a job that never reached the queue, with its upload.
      */
-    @GetMapping("/output/{jobId}")
-    public ResponseEntity<?> downloadOutput(@PathVariable String jobId) {
+    private void discardJob(Job job) {
         try {
-            // Check if job exists
-            if (!jobManager.jobExists(jobId)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Job not found or expired"));
-            }
+            jobManager.deleteJob(job.getJobId());
+        } catch (IOException e) {
+            System.err.println("Failed to remove job " + job.getJobId() + ": " + e.getMessage());
+        }
+    }
 
-            // Check if output exists
-            if (!fileStorageService.outputExists(jobId)) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND)
-                        .body(Map.of("error", "Output files not found"));
-            }
+    /**
+     * Builds the 429 response returned when the conversion queue is full.
+     */
+    private ResponseEntity<?> queueFullResponse() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(conversionQueue.getRetryAfterSeconds()))
+                .body(Map.of("error", "Conversion queue is full, retry later"));
+    }
 
-            // Create ZIP file
-            File zipFile = fileStorageService.zipOutputFiles(jobId);
+    /**
+     * GET /api/status/{jobId} - Live job state and page progress
+     */
+    @GetMapping("/status/{jobId}")
+    public ResponseEntity<?> getStatus(@PathVariable String jobId) {
+        Job job = jobManager.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Job not found or expired"));
+        }
+
+        return ResponseEntity.ok(JobStatusResponse.fromJob(job));
+    }
 
-            // Return ZIP as download
-            Resource resource = new FileSystemResource(zipFile);
+    /**
+     * GET /api/output/{jobId} - Download converted images as a streamed ZIP.
+     * For a job that is still running, pages are streamed as they finish.
+     * Multi-page TIFF jobs return the TIFF itself.
+     */
+    @GetMapping("/output/{jobId}")
+    public ResponseEntity<StreamingResponseBody> downloadOutput(@PathVariable String jobId) {
+        // Check if job exists
+        Job job = jobManager.getJob(jobId);
+        if (job == null) {
+            return streamingError(HttpStatus.NOT_FOUND, Map.of("error", "Job not found or expired"));
+        }
 
+        // Failed jobs have nothing to download
+        if (Job.STATUS_FAILED.equals(job.getStatus())) {
+            return streamingError(HttpStatus.CONFLICT, Map.of(
+                    "error", "Job failed",
+                    "message", String.valueOf(job.getErrorMessage())
+            ));
+        }
+
+        // Check if output exists
+        if (job.isFinished() && !fileStorageService.outputExists(jobId)) {
+            return streamingError(HttpStatus.NOT_FOUND, Map.of("error", "Output files not found"));
+        }
+
+        // Multi-page TIFF jobs download the single file, once it is complete
+        if (job.isMultipage()) {
+            StreamingResponseBody body = out -> fileStorageService.streamOutputFile(
+                    job, PdfConverter.MULTIPAGE_FILENAME, out);
             return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + ".zip\"")
-                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                    .contentLength(zipFile.length())
-                    .body(resource);
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + ".tiff\"")
+                    .contentType(MediaType.parseMediaType("image/tiff"))
+                    .body(body);
+        }
+
+        StreamingResponseBody body = out -> fileStorageService.streamOutputZip(job, out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + ".zip\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
 
+    /**
+     * Builds a JSON error response for endpoints that return a streaming body.
+     */
+    private ResponseEntity<StreamingResponseBody> streamingError(HttpStatus status, Map<String, String> error) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> objectMapper.writeValue(out, error));
+    }
+
+    /**
+     * POST /api/preview - Render one page of an uploaded PDF as a small image
+     */
+    @PostMapping(value = "/preview", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> previewUpload(
+            @RequestParam("pdf") MultipartFile pdfFile,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "256") int size,
+            @RequestParam(value = "format", defaultValue = "png") String format) {
+
+        if (pdfFile.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "PDF file is required"));
+        }
+
+        try {
+            File previewPdf = fileStorageService.savePreviewFile(pdfFile);
+            String documentHash = previewPdf.getName().substring(0, previewPdf.getName().length() - ".pdf".length());
+            return renderPreview(previewPdf, documentHash, page, size, format);
         } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(Map.of(
-                            "error", "Failed to create download",
-                            "message", e.getMessage()
+                            "error", "Preview failed",
+                            "message", String.valueOf(e.getMessage())
+                    ));
+        }
+    }
+
+    /**
+     * GET /api/preview/{jobId} - Render one page of an existing job's PDF as a small image
+     */
+    @GetMapping("/preview/{jobId}")
+    public ResponseEntity<?> previewJob(
+            @PathVariable String jobId,
+            @RequestParam(value = "page", defaultValue = "1") int page,
+            @RequestParam(value = "size", defaultValue = "256") int size,
+            @RequestParam(value = "format", defaultValue = "png") String format) {
+
+        Job job = jobManager.getJob(jobId);
+        File inputPdf = fileStorageService.getUploadedFile(jobId);
+        if (job == null || !inputPdf.exists()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", "Job not found or expired"));
+        }
+
+        try {
+            if (job.getContentHash() == null) {
+                job.setContentHash(HashUtility.sha256Hex(inputPdf));
+            }
+            return renderPreview(inputPdf, job.getContentHash(), page, size, format);
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(
+                            "error", "Preview failed",
+                            "message", String.valueOf(e.getMessage())
                     ));
         }
     }
 
+    /**
+     * Validates preview parameters and renders the thumbnail.
+     */
+    private ResponseEntity<?> renderPreview(File pdf, String documentHash, int page, int size, String format)
+            throws IOException {
+        if (size < 16 || size > 2048) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Size must be between 16 and 2048 pixels"));
+        }
+
+        if (!format.equalsIgnoreCase("jpg") && !format.equalsIgnoreCase("png")) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Format must be 'jpg' or 'png'"));
+        }
+
+        ThumbnailRenderer.Thumbnail thumbnail;
+        try {
+            thumbnail = thumbnailRenderer.render(pdf, documentHash, page, size, format.toLowerCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        return ResponseEntity.ok()
+                .contentType(thumbnail.getFormat().equals("png") ? MediaType.IMAGE_PNG : MediaType.IMAGE_JPEG)
+                .header("X-Render-Time-Ms", String.valueOf(thumbnail.getRenderTimeMs()))
+                .header("X-Preview-Cache", thumbnail.isCacheHit() ? "HIT" : "MISS")
+                .body(thumbnail.getBytes());
+    }
+
     /**
      * GET /api/help - API documentation
      */
@@ -151,18 +497,57 @@ public class ConversionController {
 
         endpoints.put("POST /api/convert", new ApiInfo.EndpointInfo(
                 "Convert PDF to images",
-                Map.of(
-                        "pdf", "PDF file (multipart/form-data)",
-                        "dpi", "Resolution (50-600, default: 150)",
-                        "format", "Output format (jpg|png, default: jpg)"
+                Map.ofEntries(
+                        Map.entry("pdf", "PDF file (multipart/form-data), or send the PDF as the application/pdf request body"),
+                        Map.entry("filename", "Original file name for application/pdf uploads (default: document.pdf)"),
+                        Map.entry("dpi", "Resolution (50-600, default: 150)"),
+                        Map.entry("format", "Output format (jpg|png|tiff, default: jpg)"),
+                        Map.entry("pages", "Pages to render, e.g. 1-3,7,10- (default: all)"),
+                        Map.entry("colorMode", "Raster type (color|gray|bilevel, default: color)"),
+                        Map.entry("width", "Target image width in pixels, overrides dpi (default: unset)"),
+                        Map.entry("height", "Target image height in pixels, overrides dpi (default: unset)"),
+                        Map.entry("maxPixels", "Maximum pixels per page image (default: unlimited)"),
+                        Map.entry("quality", "JPEG quality 1-100 (default: 75)"),
+                        Map.entry("compression", "PNG compression level 0-9 (default: 6)"),
+                        Map.entry("progressive", "Write progressive JPEGs (default: false)"),
+                        Map.entry("pngFilter", "PNG row filter none|sub|up|average|paeth|adaptive (default: auto)"),
+                        Map.entry("deflateStrategy", "PNG deflate strategy default|filtered|huffman (default: auto)"),
+                        Map.entry("multipage", "Write one multi-page TIFF instead of a file per page (format=tiff, default: false)"),
+                        Map.entry("tiffCompression", "TIFF compression lzw|deflate|g4|packbits|none (default: g4 for bilevel, else deflate)"),
+                        Map.entry("reduceColors", "Write monochrome/few-color pages as gray or palette PNGs (default: true)"),
+                        Map.entry("async", "Queue the job and return 202 immediately (default: false)")
                 )
         ));
 
+        endpoints.put("GET /api/status/:jobId", new ApiInfo.EndpointInfo(
+                "Job state (queued|rendering|repairing|completed|failed) and page progress",
+                Map.of("jobId", "Job ID from conversion response")
+        ));
+
         endpoints.put("GET /api/output/:jobId", new ApiInfo.EndpointInfo(
-                "Download converted images as ZIP",
+                "Download converted images as a streamed ZIP (streams pages while the job is running)",
                 Map.of("jobId", "Job ID from conversion response")
         ));
 
+        endpoints.put("POST /api/preview", new ApiInfo.EndpointInfo(
+                "Render one page of an uploaded PDF as a thumbnail image",
+                Map.of(
+                        "pdf", "PDF file (multipart/form-data)",
+                        "page", "Page number (default: 1)",
+                        "size", "Longer side in pixels (16-2048, default: 256)",
+                        "format", "Image format (jpg|png, default: png)"
+                )
+        ));
+
+        endpoints.put("GET /api/preview/:jobId", new ApiInfo.EndpointInfo(
+                "Render one page of an existing job's PDF as a thumbnail image",
+                Map.of(
+                        "page", "Page number (default: 1)",
+                        "size", "Longer side in pixels (16-2048, default: 256)",
+                        "format", "Image format (jpg|png, default: png)"
+                )
+        ));
+
         endpoints.put("GET /api/help", new ApiInfo.EndpointInfo(
                 "API documentation",
                 Map.of()
@@ -185,6 +570,19 @@ public class ConversionController {
         Map<String, Object> health = new HashMap<>();
         health.put("status", "healthy");
         health.put("activeJobs", jobManager.getJobCount());
+        health.put("jobStore", jobManager.getMetrics());
+        health.put("queueDepth", conversionQueue.getQueueDepth());
+        health.put("runningConversions", conversionQueue.getActiveCount());
+        health.put("renderQueueDepth", renderScheduler.getQueueDepth());
+        health.put("renderThreads", renderScheduler.getThreadCount());
+        health.put("busyRenderThreads", renderScheduler.getBusyThreadCount());
+        health.put("renderMemory", renderScheduler.getMemoryBudget().getMetrics());
+        health.put("resultCache", resultCache.getMetrics());
+        health.put("pageCache", pageCache.getMetrics());
+        health.put("pageOutcomes", pageStatistics.getMetrics());
+        health.put("preview", thumbnailRenderer.getMetrics());
+        health.put("repair", pdfRepairService.getMetrics());
+        health.put("repairCache", repairCache.getMetrics());
         health.put("api", "running");
 
         return ResponseEntity.ok(health);
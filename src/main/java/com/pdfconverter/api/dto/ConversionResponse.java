@@ -10,6 +10,7 @@ public class ConversionResponse {
     private String status;
     private Map<String, Object> metadata;
     private String downloadUrl;
+    private String statusUrl;
 
     public ConversionResponse() {
     }
@@ -53,4 +54,12 @@ public class ConversionResponse {
     public void setDownloadUrl(String downloadUrl) {
         this.downloadUrl = downloadUrl;
     }
+
+    public String getStatusUrl() {
+        return statusUrl;
+    }
+
+    public void setStatusUrl(String statusUrl) {
+        this.statusUrl = statusUrl;
+    }
 }
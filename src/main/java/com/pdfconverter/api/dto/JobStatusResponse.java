@@ -0,0 +1,147 @@
+package com.pdfconverter.api.dto;
+
+import com.pdfconverter.api.model.Job;
+
+import java.util.Map;
+
+/**
+ * Response DTO describing the live state of a conversion job.
+ */
+public class JobStatusResponse {
+    private String jobId;
+    private String status;
+    private String pages;
+    private int documentPages;
+    private int totalPages;
+    private int processedPages;
+    private int failedPages;
+    private String createdAt;
+    private String finishedAt;
+    private String error;
+    private Map<String, Object> metadata;
+    private String downloadUrl;
+
+    public JobStatusResponse() {
+    }
+
+    /**
+     * Builds a status snapshot from a job.
+     */
+    public static JobStatusResponse fromJob(Job job) {
+        JobStatusResponse response = new JobStatusResponse();
+        response.setJobId(job.getJobId());
+        response.setStatus(job.getStatus());
+        response.setPages(job.getPages());
+        response.setDocumentPages(job.getDocumentPages());
+        response.setTotalPages(job.getTotalPages());
+        response.setProcessedPages(job.getProcessedPages());
+        response.setFailedPages(job.getFailedPages());
+        response.setCreatedAt(job.getCreatedAt().toString());
+        if (job.getFinishedAt() != null) {
+            response.setFinishedAt(job.getFinishedAt().toString());
+        }
+        response.setError(job.getErrorMessage());
+        if (Job.STATUS_COMPLETED.equals(job.getStatus())) {
+            response.setMetadata(job.getMetadata());
+            response.setDownloadUrl("/api/output/" + job.getJobId());
+        }
+        return response;
+    }
+
+    // Getters and setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPages() {
+        return pages;
+    }
+
+    public void setPages(String pages) {
+        this.pages = pages;
+    }
+
+    public int getDocumentPages() {
+        return documentPages;
+    }
+
+    public void setDocumentPages(int documentPages) {
+        this.documentPages = documentPages;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public int getProcessedPages() {
+        return processedPages;
+    }
+
+    public void setProcessedPages(int processedPages) {
+        this.processedPages = processedPages;
+    }
+
+    public int getFailedPages() {
+        return failedPages;
+    }
+
+    public void setFailedPages(int failedPages) {
+        this.failedPages = failedPages;
+    }
+
+    public String getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(String createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(String finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+
+    public String getDownloadUrl() {
+        return downloadUrl;
+    }
+
+    public void setDownloadUrl(String downloadUrl) {
+        this.downloadUrl = downloadUrl;
+    }
+}
@@ -1,17 +1,52 @@
 package com.pdfconverter.api.model;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a PDF conversion job.
+ * Progress fields are updated by conversion workers and read by status requests.
  */
 public class Job {
+    public static final String STATUS_QUEUED = "queued";
+    public static final String STATUS_RENDERING = "rendering";
+    public static final String STATUS_REPAIRING = "repairing";
+    public static final String STATUS_COMPLETED = "completed";
+    public static final String STATUS_FAILED = "failed";
+
     private String jobId;
     private LocalDateTime createdAt;
     private int dpi;
     private String format;
-    private String status;
+    private volatile String status;
     private String originalFilename;
+    private volatile String contentHash;
+    private String pages = "all";
+    private int width;
+    private int height;
+    private long maxPixels;
+    private int quality;
+    private int compressionLevel = -1;
+    private boolean progressive;
+    private String pngFilter;
+    private String deflateStrategy;
+    private boolean reduceColors = true;
+    private String colorMode = "color";
+    private boolean multipage;
+    private String tiffCompression;
+    private volatile int documentPages;
+    private volatile List<Integer> plannedPages;
+    private volatile int totalPages;
+    private final AtomicInteger processedPages = new AtomicInteger(0);
+    private final AtomicInteger failedPages = new AtomicInteger(0);
+    private volatile String errorMessage;
+    private volatile LocalDateTime finishedAt;
+    private volatile Map<String, Object> metadata;
+    private final Map<Integer, String> writtenPages = new TreeMap<>();
+    private final Object progressMonitor = new Object();
 
     public Job(String jobId, int dpi, String format, String originalFilename) {
         this.jobId = jobId;
@@ -19,7 +54,7 @@ public class Job {
         this.format = format;
         this.originalFilename = originalFilename;
         this.createdAt = LocalDateTime.now();
-        this.status = "processing";
+        this.status = STATUS_QUEUED;
     }
 
     // Getters and setters
@@ -61,6 +96,7 @@ public class Job {
 
     public void setStatus(String status) {
         this.status = status;
+        signalProgress();
     }
 
     public String getOriginalFilename() {
@@ -71,7 +107,287 @@ public class Job {
         this.originalFilename = originalFilename;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getPages() {
+        return pages;
+    }
+
+    public void setPages(String pages) {
+        this.pages = pages;
+    }
+
+    /**
+     * Target image width in pixels; 0 to use the DPI.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    public void setWidth(int width) {
+        this.width = width;
+    }
+
+    /**
+     * Target image height in pixels; 0 to use the DPI.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    public void setHeight(int height) {
+        this.height = height;
+    }
+
+    /**
+     * Pixel cap per page; 0 for no cap.
+     */
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    public void setMaxPixels(long maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+
+    /**
+     * JPEG quality from 1 to 100; 0 for the encoder default.
+     */
+    public int getQuality() {
+        return quality;
+    }
+
+    public void setQuality(int quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * PNG compression level from 0 to 9; -1 for the encoder default.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    public String getPngFilter() {
+        return pngFilter;
+    }
+
+    public void setPngFilter(String pngFilter) {
+        this.pngFilter = pngFilter;
+    }
+
+    public String getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
+    public void setDeflateStrategy(String deflateStrategy) {
+        this.deflateStrategy = deflateStrategy;
+    }
+
+    public boolean isReduceColors() {
+        return reduceColors;
+    }
+
+    public void setReduceColors(boolean reduceColors) {
+        this.reduceColors = reduceColors;
+    }
+
+    /**
+     * Raster type: color, gray or bilevel.
+     */
+    public String getColorMode() {
+        return colorMode;
+    }
+
+    public void setColorMode(String colorMode) {
+        this.colorMode = colorMode;
+    }
+
+    /**
+     * All pages go into one multi-page TIFF instead of one file per page.
+     */
+    public boolean isMultipage() {
+        return multipage;
+    }
+
+    public void setMultipage(boolean multipage) {
+        this.multipage = multipage;
+    }
+
+    public String getTiffCompression() {
+        return tiffCompression;
+    }
+
+    public void setTiffCompression(String tiffCompression) {
+        this.tiffCompression = tiffCompression;
+    }
+
+    /**
+     * Number of pages the job will produce (the selected pages, not the whole document).
+     */
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public void setTotalPages(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public int getDocumentPages() {
+        return documentPages;
+    }
+
+    public void setDocumentPages(int documentPages) {
+        this.documentPages = documentPages;
+    }
+
+    /**
+     * 1-based page numbers the job will render, in output order; null until the document is opened.
+     */
+    public List<Integer> getPlannedPages() {
+        return plannedPages;
+    }
+
+    public void setPlannedPages(List<Integer> plannedPages) {
+        this.plannedPages = plannedPages;
+        signalProgress();
+    }
+
+    public int getProcessedPages() {
+        return processedPages.get();
+    }
+
+    public int getFailedPages() {
+        return failedPages.get();
+    }
+
+    /**
+     * Records a finished page from the initial rendering pass.
+     */
+    public void recordPageProcessed(boolean success) {
+        processedPages.incrementAndGet();
+        if (!success) {
+            failedPages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records that a page image has been fully written.
+     *
+     * @param pageNumber 1-based page number
+     * @param filename   Output file name relative to the job output directory
+     */
+    public void recordPageWritten(int pageNumber, String filename) {
+        synchronized (progressMonitor) {
+            writtenPages.put(pageNumber, filename);
+        }
+        signalProgress();
+    }
+
+    /**
+     * Gets the output file name of a written page.
+     *
+     * @param pageNumber 1-based page number
+     * @return File name, or null if the page has not been written yet
+     */
+    public String getWrittenPage(int pageNumber) {
+        synchronized (progressMonitor) {
+            return writtenPages.get(pageNumber);
+        }
+    }
+
+    /**
+     * Output file names of the written pages, by 1-based page number.
+     */
+    public Map<Integer, String> getWrittenPages() {
+        synchronized (progressMonitor) {
+            return new TreeMap<>(writtenPages);
+        }
+    }
+
+    /**
+     * Restores page progress read back from a job store.
+     */
+    public void restoreProgress(int processed, int failed, Map<Integer, String> written) {
+        processedPages.set(processed);
+        failedPages.set(failed);
+        synchronized (progressMonitor) {
+            writtenPages.clear();
+            writtenPages.putAll(written);
+        }
+    }
+
+    /**
+     * Waits until a page is written or the status changes.
+     *
+     * @param timeoutMs Maximum time to wait
+     */
+    public void awaitProgress(long timeoutMs) throws InterruptedException {
+        synchronized (progressMonitor) {
+            progressMonitor.wait(timeoutMs);
+        }
+    }
+
+    private void signalProgress() {
+        synchronized (progressMonitor) {
+            progressMonitor.notifyAll();
+        }
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Map<String, Object> getMetadata() {
+        return metadata;
+    }
+
+    public void setMetadata(Map<String, Object> metadata) {
+        this.metadata = metadata;
+    }
+
+    public boolean isFinished() {
+        return STATUS_COMPLETED.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    /**
+     * When a finished job's files may be deleted: expiryHours after it finished.
+     */
+    public LocalDateTime getExpiresAt(int expiryHours) {
+        return (finishedAt != null ? finishedAt : createdAt).plusHours(expiryHours);
+    }
+
     public boolean isExpired(int expiryHours) {
-        return createdAt.plusHours(expiryHours).isBefore(LocalDateTime.now());
+        return getExpiresAt(expiryHours).isBefore(LocalDateTime.now());
     }
 }
@@ -0,0 +1,152 @@
+package com.pdfconverter.api.service;
+
+import com.pdfconverter.api.model.Job;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded admission queue for conversion jobs.
+ * Jobs run on a dedicated worker pool so servlet threads are not held for the whole render.
+ * When the queue is full, submissions are rejected and callers should shed load.
+ */
+@Service
+public class ConversionQueue {
+
+    @Value("${app.queue.workers:2}")
+    private int workers;
+
+    @Value("${app.queue.capacity:20}")
+    private int capacity;
+
+    @Value("${app.queue.retry-after-seconds:30}")
+    private int retryAfterSeconds;
+
+    @Value("${app.queue.shutdown-timeout-seconds:30}")
+    private int shutdownTimeoutSeconds;
+
+    @Autowired
+    private ConversionService conversionService;
+
+    @Autowired
+    private JobManager jobManager;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Start the worker pool.
+     */
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "conversion-worker-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        System.out.println("Conversion queue: " + workers + " worker(s), capacity " + capacity);
+        resumeInterruptedJobs();
+    }
+
+    /**
+     * Queues the jobs that were interrupted by a restart again. Their
+     * conversions resume from the page checkpoint in the output directory.
+     */
+    private void resumeInterruptedJobs() {
+        int resumed = 0;
+        for (Job job : jobManager.takeInterruptedJobs()) {
+            try {
+                submit(fileStorageService.getUploadedFile(job.getJobId()), job);
+                resumed++;
+            } catch (RejectedExecutionException e) {
+                jobManager.failInterruptedJob(job, "Interrupted by a server restart and the queue is full");
+            }
+        }
+        if (resumed > 0) {
+            System.out.println("Resumed " + resumed + " job(s) interrupted by the last restart");
+        }
+    }
+
+    /**
+     * Stop accepting jobs and interrupt running conversions.
+     * Interrupted and queued jobs stay unfinished in the job store and are
+     * resumed on the next start. Waits for the conversions to wind down, so
+     * their last updates reach the job store before it is closed.
+     */
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        jobManager.beginShutdown();
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Conversions still running after " + shutdownTimeoutSeconds
+                        + "s, shutting down anyway");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a job for conversion.
+     *
+     * @param inputPdf Uploaded PDF file
+     * @param job      Job information
+     * @return Future completing with the conversion metadata
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Future<Map<String, Object>> submit(File inputPdf, Job job) {
+        return executor.submit(() -> conversionService.convertPdf(inputPdf, job));
+    }
+
+    /**
+     * Checks whether a new job would currently be admitted.
+     * Used to reject uploads before they are written to disk.
+     */
+    public boolean hasCapacity() {
+        return executor.getQueue().remainingCapacity() > 0
+                || executor.getActiveCount() < executor.getMaximumPoolSize();
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
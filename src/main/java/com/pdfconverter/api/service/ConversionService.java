@@ -1,14 +1,28 @@
 package com.pdfconverter.api.service;
 
 import com.pdfconverter.api.model.Job;
+import com.pdfconverter.core.ConversionListener;
+import com.pdfconverter.core.ConversionOptions;
+import com.pdfconverter.core.DocumentLoader;
+import com.pdfconverter.core.EncoderSettings;
+import com.pdfconverter.core.PageSelection;
+import com.pdfconverter.core.PageCache;
 import com.pdfconverter.core.PdfConverter;
 import com.pdfconverter.core.PdfRepairService;
+import com.pdfconverter.core.RepairCache;
+import com.pdfconverter.core.RenderScheduler;
+import com.pdfconverter.util.HashUtility;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Service for handling PDF to Image conversion.
@@ -25,8 +39,55 @@ public class ConversionService {
     @Autowired
     private PdfRepairService pdfRepairService;
 
+    @Autowired
+    private RepairCache repairCache;
+
+    @Autowired
+    private RenderScheduler renderScheduler;
+
+    @Autowired
+    private ResultCache resultCache;
+
+    @Autowired
+    private PageCache pageCache;
+
+    @Autowired
+    private PageStatistics pageStatistics;
+
+    @Value("${app.render.job-weight:1}")
+    private int jobWeight;
+
+    @Value("${app.checkpoint.enabled:true}")
+    private boolean checkpointEnabled;
+
+    @Value("${app.load.in-memory-threshold-mb:16}")
+    private long inMemoryThresholdMb;
+
+    @Value("${app.load.scratch-memory-mb:64}")
+    private long scratchMemoryMb;
+
+    @Value("${app.load.mapped:true}")
+    private boolean mappedLoading;
+
+    @Value("${app.load.scratch-dir:}")
+    private String scratchDir;
+
+    /**
+     * Creates the loader for one job's documents; its scratch memory budget is per job.
+     */
+    private DocumentLoader createDocumentLoader() {
+        return new DocumentLoader(
+                inMemoryThresholdMb * 1024 * 1024,
+                scratchMemoryMb * 1024 * 1024,
+                mappedLoading,
+                scratchDir.isBlank() ? null : new File(scratchDir).getAbsoluteFile());
+    }
+
     /**
      * Converts a PDF file to images.
+     * Job status and page progress are updated as the conversion advances.
+     * Identical earlier conversions are served from the result cache, and
+     * identical concurrent ones wait for the first instead of rendering again.
      *
      * @param inputPdf Input PDF file
      * @param job      Job information
@@ -34,21 +95,209 @@ public class ConversionService {
      * @throws IOException if conversion fails
      */
     public Map<String, Object> convertPdf(File inputPdf, Job job) throws IOException {
-        // Create output directory
-        File outputDir = fileStorageService.createOutputDirectory(job.getJobId());
-
-        // Perform conversion with repair service
-        PdfConverter converter = new PdfConverter(pdfRepairService);
-        Map<String, Object> metadata = converter.convertForApi(
-                inputPdf,
-                outputDir,
-                job.getDpi(),
-                job.getFormat()
-        );
-
-        // Update job status
-        jobManager.updateJobStatus(job.getJobId(), "completed");
-
-        return metadata;
+        String cacheKey = null;
+        boolean ownsCacheKey = false;
+        boolean stored = false;
+        try {
+            if (resultCache.isEnabled()) {
+                cacheKey = buildCacheKey(inputPdf, job);
+
+                Map<String, Object> cached = serveFromCache(cacheKey, job);
+                if (cached != null) {
+                    return cached;
+                }
+
+                // Single-flight: wait for an identical conversion that is already running
+                CompletableFuture<Boolean> running = resultCache.claim(cacheKey);
+                if (running != null) {
+                    if (awaitQuietly(running)) {
+                        cached = serveFromCache(cacheKey, job);
+                        if (cached != null) {
+                            return cached;
+                        }
+                    }
+                } else {
+                    ownsCacheKey = true;
+                }
+            }
+
+            // Create output directory
+            File outputDir = fileStorageService.createOutputDirectory(job.getJobId());
+
+            // Perform conversion with repair service on the shared render scheduler
+            PdfConverter converter = new PdfConverter(pdfRepairService, renderScheduler);
+            converter.setScheduling(job.getJobId(), jobWeight);
+            converter.setConversionListener(createListener(job));
+            converter.setDocumentLoader(createDocumentLoader());
+            converter.setCheckpointing(checkpointEnabled);
+            if (pageCache.isEnabled()) {
+                converter.setPageCache(pageCache, ensureContentHash(inputPdf, job));
+            }
+            if (repairCache.isEnabled()) {
+                converter.setRepairCache(repairCache, ensureContentHash(inputPdf, job));
+            }
+            Map<String, Object> metadata = converter.convertForApi(
+                    inputPdf,
+                    outputDir,
+                    buildOptions(job)
+            );
+            job.setMetadata(metadata);
+            pageStatistics.record(converter.getPageResults());
+
+            // Only fully successful conversions are worth replaying
+            if (ownsCacheKey && Integer.valueOf(0).equals(metadata.get("failedPages"))) {
+                resultCache.store(cacheKey, outputDir, metadata);
+                stored = true;
+            }
+
+            // Update job status
+            job.setFinishedAt(LocalDateTime.now());
+            jobManager.updateJobStatus(job.getJobId(), Job.STATUS_COMPLETED);
+
+            return metadata;
+        } catch (IOException | RuntimeException e) {
+            if (jobManager.isShuttingDown() && Thread.currentThread().isInterrupted()) {
+                // Interrupted by a shutdown: the job stays unfinished and is resumed on the next start
+                System.out.println("Job " + job.getJobId() + " interrupted by shutdown, resumes on the next start");
+                throw e;
+            }
+            job.setErrorMessage(e.getMessage());
+            job.setFinishedAt(LocalDateTime.now());
+            jobManager.updateJobStatus(job.getJobId(), Job.STATUS_FAILED);
+            throw e;
+        } finally {
+            if (ownsCacheKey) {
+                resultCache.release(cacheKey, stored);
+            }
+        }
+    }
+
+    /**
+     * Completes a job from the result cache if an identical conversion is stored.
+     *
+     * @param inputPdf Uploaded PDF file
+     * @param job      Job information
+     * @return Cached metadata, or null if the cache is disabled or misses
+     * @throws IOException if hashing or copying fails
+     */
+    public Map<String, Object> tryServeFromCache(File inputPdf, Job job) throws IOException {
+        if (!resultCache.isEnabled()) {
+            return null;
+        }
+        return serveFromCache(buildCacheKey(inputPdf, job), job);
+    }
+
+    private Map<String, Object> serveFromCache(String cacheKey, Job job) throws IOException {
+        File outputDir = fileStorageService.getOutputDirectory(job.getJobId());
+        Map<String, Object> cached = resultCache.lookup(cacheKey, outputDir);
+        if (cached == null) {
+            return null;
+        }
+
+        cached.put("cacheHit", true);
+        if (cached.get("totalPages") instanceof Number totalPages) {
+            job.setDocumentPages(totalPages.intValue());
+        }
+        if (cached.get("requestedPageCount") instanceof Number requestedPageCount) {
+            job.setTotalPages(requestedPageCount.intValue());
+        }
+        job.setMetadata(cached);
+        job.setFinishedAt(LocalDateTime.now());
+        jobManager.updateJobStatus(job.getJobId(), Job.STATUS_COMPLETED);
+        return cached;
+    }
+
+    /**
+     * Builds the cache key from the input content hash and every parameter
+     * that affects the rendered output.
+     */
+    private String buildCacheKey(File inputPdf, Job job) throws IOException {
+        ConversionOptions options = buildOptions(job);
+        return ensureContentHash(inputPdf, job) + "-" + options.getDpi() + "-" + options.getFormat()
+                + "-" + options.getPageSelection().toString().replace(',', '_')
+                + "-" + options.getTargetWidth() + "x" + options.getTargetHeight() + "-" + options.getMaxPixels()
+                + "-" + options.getColorMode() + "-" + options.getEncoderSettings()
+                + (options.isMultipage() ? "-multipage" : "");
+    }
+
+    /**
+     * Translates job parameters into converter options.
+     */
+    private ConversionOptions buildOptions(Job job) {
+        ConversionOptions options = new ConversionOptions(job.getDpi(), job.getFormat());
+        options.setPageSelection(PageSelection.parse(job.getPages()));
+        options.setTargetWidth(job.getWidth());
+        options.setTargetHeight(job.getHeight());
+        options.setMaxPixels(job.getMaxPixels());
+        options.setColorMode(job.getColorMode());
+        options.setMultipage(job.isMultipage());
+
+        EncoderSettings encoderSettings = new EncoderSettings();
+        if (job.getQuality() > 0) {
+            encoderSettings.setQuality(job.getQuality() / 100f);
+        }
+        encoderSettings.setCompressionLevel(job.getCompressionLevel());
+        encoderSettings.setProgressive(job.isProgressive());
+        encoderSettings.setPngFilter(job.getPngFilter());
+        encoderSettings.setDeflateStrategy(job.getDeflateStrategy());
+        encoderSettings.setReduceColors(job.isReduceColors());
+        encoderSettings.setTiffCompression(job.getTiffCompression());
+        options.setEncoderSettings(encoderSettings);
+        return options;
+    }
+
+    /**
+     * Gets the SHA-256 of the uploaded PDF, hashing it on first use.
+     */
+    private String ensureContentHash(File inputPdf, Job job) throws IOException {
+        if (job.getContentHash() == null) {
+            job.setContentHash(HashUtility.sha256Hex(inputPdf));
+        }
+        return job.getContentHash();
+    }
+
+    /**
+     * Waits for another conversion of the same key.
+     *
+     * @return true if that conversion stored a result
+     */
+    private boolean awaitQuietly(CompletableFuture<Boolean> running) {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a listener that mirrors converter progress into the job.
+     */
+    private ConversionListener createListener(Job job) {
+        return new ConversionListener() {
+            @Override
+            public void onStageChanged(String stage) {
+                jobManager.updateJobStatus(job.getJobId(), stage);
+            }
+
+            @Override
+            public void onPagesPlanned(int documentPages, List<Integer> pageNumbers) {
+                job.setDocumentPages(documentPages);
+                job.setTotalPages(pageNumbers.size());
+                job.setPlannedPages(pageNumbers);
+            }
+
+            @Override
+            public void onPageFinished(int pageNumber, boolean success) {
+                job.recordPageProcessed(success);
+            }
+
+            @Override
+            public void onPageWritten(int pageNumber, File outputFile) {
+                job.recordPageWritten(pageNumber, outputFile.getName());
+            }
+        };
     }
 }
@@ -0,0 +1,225 @@
+package com.pdfconverter.api.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.ToNumberPolicy;
+import com.pdfconverter.api.model.Job;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job store backed by an append-only log file, one JSON line per change
+ * ({"put": record} or {"remove": jobId}). Every line is flushed to the
+ * operating system before the call returns, so a crashed JVM loses nothing
+ * that was saved. On startup the log is replayed (a line cut off by a crash
+ * is ignored) and rewritten with only the live jobs; it is compacted the same
+ * way whenever superseded lines outnumber live jobs by more than
+ * COMPACT_MIN_GARBAGE.
+ */
+public class FileJobStore implements JobStore {
+    private static final String LOG_FILE = "jobs.log";
+    private static final int COMPACT_MIN_GARBAGE = 1000;
+
+    private final File logFile;
+    private final Gson gson = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .create();
+
+    // Last saved line of every live job, in first-saved order
+    private final Map<String, String> live = new LinkedHashMap<>();
+    private Writer writer;
+    private long linesInLog = 0;
+    private long compactions = 0;
+    private long corruptLines = 0;
+
+    /**
+     * Opens the store, creating the directory if needed.
+     *
+     * @param dir Directory holding the log
+     */
+    public FileJobStore(File dir) throws IOException {
+        Files.createDirectories(dir.toPath());
+        this.logFile = new File(dir, LOG_FILE);
+    }
+
+    @Override
+    public synchronized List<Job> loadAll() throws IOException {
+        live.clear();
+        if (logFile.exists()) {
+            replay();
+        }
+        try {
+            compact();
+        } catch (IOException e) {
+            // The replayed log is still complete; keep appending to it
+            System.err.println("Job store: compaction failed: " + e.getMessage());
+            if (writer == null) {
+                openWriter();
+            }
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        for (String line : live.values()) {
+            try {
+                jobs.add(gson.fromJson(line, LogEntry.class).put.toJob());
+            } catch (RuntimeException e) {
+                corruptLines++;
+                System.err.println("Job store: cannot restore job: " + e.getMessage());
+            }
+        }
+        return jobs;
+    }
+
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(logFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                LogEntry entry;
+                try {
+                    entry = gson.fromJson(line, LogEntry.class);
+                } catch (JsonParseException e) {
+                    // Usually the last line, cut off by a crash
+                    corruptLines++;
+                    continue;
+                }
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.put != null && entry.put.getJobId() != null) {
+                    live.put(entry.put.getJobId(), line);
+                } else if (entry.remove != null) {
+                    live.remove(entry.remove);
+                }
+            }
+        }
+        if (corruptLines > 0) {
+            System.err.println("Job store: skipped " + corruptLines + " unreadable line(s) in " + logFile);
+        }
+    }
+
+    @Override
+    public synchronized void save(Job job) throws IOException {
+        LogEntry entry = new LogEntry();
+        entry.put = JobRecord.from(job);
+        String line = gson.toJson(entry);
+        // Live before appending, so a compaction triggered by this line keeps it
+        live.put(job.getJobId(), line);
+        append(line);
+    }
+
+    @Override
+    public synchronized void remove(String jobId) throws IOException {
+        if (live.remove(jobId) == null) {
+            return;
+        }
+        LogEntry entry = new LogEntry();
+        entry.remove = jobId;
+        append(gson.toJson(entry));
+    }
+
+    private void append(String line) throws IOException {
+        if (writer == null) {
+            throw new IOException("Job store is closed");
+        }
+        writer.write(line);
+        writer.write('\n');
+        writer.flush();
+        linesInLog++;
+
+        if (linesInLog - live.size() > Math.max(COMPACT_MIN_GARBAGE, live.size())) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The line is saved; compaction is retried on the next append
+                System.err.println("Job store: compaction failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rewrites the log with one line per live job, then switches to it atomically.
+     * The append writer is only closed once the compacted file is complete, and
+     * is always reopened, so a failed compaction leaves the store usable.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(logFile.getParentFile(), LOG_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(compacted);
+             Writer compactWriter = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            for (String line : live.values()) {
+                compactWriter.write(line);
+                compactWriter.write('\n');
+            }
+            compactWriter.flush();
+            out.getFD().sync();
+        }
+
+        closeWriter();
+        try {
+            Files.move(compacted.toPath(), logFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            linesInLog = live.size();
+            compactions++;
+        } finally {
+            // Appends continue on the compacted log, or on the old one if the move failed
+            openWriter();
+        }
+    }
+
+    private void openWriter() throws IOException {
+        writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(logFile, true), StandardCharsets.UTF_8));
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            try {
+                writer.close();
+            } finally {
+                writer = null;
+            }
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("type", "file");
+        metrics.put("jobs", live.size());
+        metrics.put("logLines", linesInLog);
+        metrics.put("logBytes", logFile.length());
+        metrics.put("compactions", compactions);
+        metrics.put("corruptLines", corruptLines);
+        return metrics;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeWriter();
+    }
+
+    /**
+     * One line of the log.
+     */
+    private static class LogEntry {
+        private JobRecord put;
+        private String remove;
+    }
+}
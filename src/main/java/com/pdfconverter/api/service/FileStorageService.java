@@ -1,14 +1,33 @@
 package com.pdfconverter.api.service;
 
+import com.pdfconverter.api.model.Job;
+import com.pdfconverter.core.PageCheckpoint;
+import com.pdfconverter.util.HashUtility;
 import com.pdfconverter.util.ZipUtility;
 import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Service for handling file storage operations.
@@ -22,6 +41,26 @@ public class FileStorageService {
     @Value("${app.output.dir:outputs}")
     private String outputDirConfig;
 
+    @Value("${app.job.expiry-hours:1}")
+    private int expiryHours;
+
+    @Value("${app.upload.max-size-mb:1024}")
+    private long maxUploadSizeMb;
+
+    /**
+     * How often a streaming download re-checks a running job.
+     */
+    private static final long PROGRESS_POLL_MS = 1000;
+
+    /**
+     * Sub-directory of the upload directory holding preview uploads.
+     */
+    private static final String PREVIEW_DIR = "previews";
+
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
+    private static final int PDF_HEADER_WINDOW = 1024;
+    private static final byte[] PDF_HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
     /**
      * Gets the absolute path for upload directory.
      */
@@ -53,27 +92,138 @@ public class FileStorageService {
     }
 
     /**
-     * Saves an uploaded PDF file.
+     * Saves an uploaded PDF in a single pass over the request body.
+     * While the bytes are copied to the job's upload directory they are hashed
+     * (the hash becomes the job's content hash), counted against the upload
+     * limit, and the first bytes are checked for the %PDF- header, so
+     * non-PDFs and oversized uploads are rejected without reading them fully.
+     * The bytes go to a temporary file that is moved to input.pdf only once the
+     * whole body has been read, so a crash mid-upload never leaves a truncated
+     * input.pdf for job recovery to convert.
      *
-     * @param file  Multipart file
-     * @param jobId Job ID
+     * @param in  Upload body
+     * @param job Job the upload belongs to
      * @return Saved file
+     * @throws UploadRejectedException if the upload is not a PDF or too large
      * @throws IOException if saving fails
      */
-    public File saveUploadedFile(MultipartFile file, String jobId) throws IOException {
+    public File saveUploadedFile(InputStream in, Job job) throws IOException {
         // Create upload directory for this job
-        File jobUploadDir = new File(getUploadDir(), jobId);
-        if (!jobUploadDir.exists()) {
-            Files.createDirectories(jobUploadDir.toPath());
-        }
+        File jobUploadDir = new File(getUploadDir(), job.getJobId());
+        Files.createDirectories(jobUploadDir.toPath());
 
-        // Save the PDF
         File pdfFile = new File(jobUploadDir, "input.pdf");
-        file.transferTo(pdfFile);
+        File tempFile = new File(jobUploadDir, "input.pdf.tmp");
+        MessageDigest digest = HashUtility.newSha256();
+        long maxBytes = getMaxUploadBytes();
+        long totalBytes = 0;
+
+        try (OutputStream out = new FileOutputStream(tempFile)) {
+            byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+
+            // Readers accept the header anywhere in the first 1 KB
+            int headerLength = in.readNBytes(buffer, 0, PDF_HEADER_WINDOW);
+            if (indexOf(buffer, headerLength, PDF_HEADER) < 0) {
+                throw new UploadRejectedException("File is not a PDF (missing %PDF- header)", false);
+            }
 
+            int length = headerLength;
+            while (length > 0) {
+                totalBytes += length;
+                if (maxBytes > 0 && totalBytes > maxBytes) {
+                    throw new UploadRejectedException("File exceeds the upload limit of "
+                            + (maxBytes / (1024 * 1024)) + " MB", true);
+                }
+                digest.update(buffer, 0, length);
+                out.write(buffer, 0, length);
+                length = in.read(buffer);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile.toPath());
+            throw e;
+        }
+        Files.move(tempFile.toPath(), pdfFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+
+        job.setContentHash(HexFormat.of().formatHex(digest.digest()));
         return pdfFile;
     }
 
+    /**
+     * Upload size limit in bytes; 0 for no limit.
+     */
+    public long getMaxUploadBytes() {
+        return maxUploadSizeMb * 1024L * 1024L;
+    }
+
+    private static int indexOf(byte[] data, int length, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the uploaded PDF of a job.
+     *
+     * @param jobId Job ID
+     * @return Uploaded file (may not exist)
+     */
+    public File getUploadedFile(String jobId) {
+        return new File(new File(getUploadDir(), jobId), "input.pdf");
+    }
+
+    /**
+     * Saves a PDF uploaded for preview under its content hash.
+     * The file is hashed while it is copied, and identical uploads share one file.
+     *
+     * @param file Multipart file
+     * @return Saved file, named {@code <sha256>.pdf}
+     * @throws IOException if saving fails
+     */
+    public File savePreviewFile(MultipartFile file) throws IOException {
+        File previewDir = new File(getUploadDir(), PREVIEW_DIR);
+        Files.createDirectories(previewDir.toPath());
+
+        File tempFile = new File(previewDir, UUID.randomUUID() + ".tmp");
+        MessageDigest digest = HashUtility.newSha256();
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            Files.copy(in, tempFile.toPath());
+        }
+
+        File previewFile = new File(previewDir, HexFormat.of().formatHex(digest.digest()) + ".pdf");
+        if (previewFile.exists()) {
+            Files.delete(tempFile.toPath());
+            previewFile.setLastModified(System.currentTimeMillis());
+        } else {
+            Files.move(tempFile.toPath(), previewFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        return previewFile;
+    }
+
+    /**
+     * Scheduled task to remove preview uploads that have not been used recently.
+     */
+    @Scheduled(cron = "${app.cleanup.cron:0 */15 * * * *}")
+    public void cleanupPreviewFiles() {
+        File[] files = new File(getUploadDir(), PREVIEW_DIR).listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - expiryHours * 3600_000L;
+        for (File file : files) {
+            if (file.lastModified() < cutoff && !file.delete()) {
+                System.err.println("Failed to cleanup preview file " + file.getName());
+            }
+        }
+    }
+
     /**
      * Creates output directory for a job.
      *
@@ -100,19 +250,97 @@ public class FileStorageService {
     }
 
     /**
-     * Creates a ZIP archive of the output files.
+     * Streams the job output as a ZIP archive.
+     * While the job is still running, pages are appended in page order as soon as
+     * they are written; remaining files (metadata.json, pages recovered late) are
+     * appended once the job finishes. Nothing is staged on disk.
      *
-     * @param jobId Job ID
-     * @return ZIP file
-     * @throws IOException if zipping fails
+     * The central directory is only written once the job has completed; if the
+     * job fails or streaming is aborted the archive is left truncated, so the
+     * client cannot mistake a partial page set for a complete one.
+     *
+     * @param job Job whose output is streamed
+     * @param out Destination stream (typically the HTTP response)
+     * @throws IOException if the job fails, or reading or writing fails
      */
-    public File zipOutputFiles(String jobId) throws IOException {
-        File outputDirFile = getOutputDirectory(jobId);
-        File zipFile = new File(getOutputDir(), jobId + ".zip");
+    public void streamOutputZip(Job job, OutputStream out) throws IOException {
+        File outputDirFile = getOutputDirectory(job.getJobId());
+        Set<String> sentFiles = new HashSet<>();
+
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(out, ZipUtility.BUFFER_SIZE));
+        try {
+            // Follow the job page by page, in output order, while it is rendering
+            int position = 0;
+            while (!job.isFinished()) {
+                List<Integer> plannedPages = job.getPlannedPages();
+                if (plannedPages == null || position >= plannedPages.size()) {
+                    job.awaitProgress(PROGRESS_POLL_MS);
+                    continue;
+                }
 
-        ZipUtility.zipDirectory(outputDirFile, zipFile);
+                String filename = job.getWrittenPage(plannedPages.get(position));
+                if (filename == null) {
+                    job.awaitProgress(PROGRESS_POLL_MS);
+                    continue;
+                }
 
-        return zipFile;
+                ZipUtility.addFile(zos, new File(outputDirFile, filename), filename);
+                zos.flush();
+                sentFiles.add(filename);
+                position++;
+            }
+            checkNotFailed(job);
+
+            // Append everything not yet sent, in name order
+            File[] files = outputDirFile.listFiles(File::isFile);
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    if (!sentFiles.contains(file.getName()) && !PageCheckpoint.FILENAME.equals(file.getName())) {
+                        ZipUtility.addFile(zos, file, file.getName());
+                    }
+                }
+            }
+            zos.finish();
+            zos.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Streaming interrupted", e);
+        }
+    }
+
+    private static void checkNotFailed(Job job) throws IOException {
+        if (Job.STATUS_FAILED.equals(job.getStatus())) {
+            throw new IOException("Job " + job.getJobId() + " failed while its output was streamed: "
+                    + job.getErrorMessage());
+        }
+    }
+
+    /**
+     * Streams a single output file, waiting for the job to finish first.
+     *
+     * @param job      Job whose output is streamed
+     * @param filename File in the job's output directory
+     * @param out      Destination stream (typically the HTTP response)
+     * @throws IOException if the file is missing or reading or writing fails
+     */
+    public void streamOutputFile(Job job, String filename, OutputStream out) throws IOException {
+        try {
+            while (!job.isFinished()) {
+                job.awaitProgress(PROGRESS_POLL_MS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Streaming interrupted", e);
+        }
+        checkNotFailed(job);
+
+        File file = new File(getOutputDirectory(job.getJobId()), filename);
+        if (!file.isFile()) {
+            throw new IOException("Output file not found: " + filename);
+        }
+        Files.copy(file.toPath(), out);
+        out.flush();
     }
 
     /**
@@ -149,11 +377,5 @@ public class FileStorageService {
         if (outputDirFile.exists()) {
             FileUtils.deleteDirectory(outputDirFile);
         }
-
-        // Delete ZIP file if exists
-        File zipFile = new File(getOutputDir(), jobId + ".zip");
-        if (zipFile.exists()) {
-            Files.delete(zipFile.toPath());
-        }
     }
 }
@@ -0,0 +1,38 @@
+package com.pdfconverter.api.service;
+
+import com.pdfconverter.api.model.Job;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Job store that keeps nothing: jobs live only in JobManager's memory and are
+ * lost on restart (their files are removed as orphans on the next startup).
+ */
+public class InMemoryJobStore implements JobStore {
+
+    @Override
+    public List<Job> loadAll() {
+        return List.of();
+    }
+
+    @Override
+    public void save(Job job) {
+        // Nothing to persist
+    }
+
+    @Override
+    public void remove(String jobId) {
+        // Nothing to persist
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return Map.of("type", "memory");
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release
+    }
+}
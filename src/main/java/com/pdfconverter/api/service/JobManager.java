@@ -1,24 +1,46 @@
 package com.pdfconverter.api.service;
 
 import com.pdfconverter.api.model.Job;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * Service for managing conversion jobs.
  * Handles job creation, tracking, and cleanup.
+ *
+ * Jobs are served from memory and every change is written through to a
+ * JobStore, so they survive a restart. On startup the stored jobs are
+ * recovered, jobs interrupted by the restart are handed back to the conversion
+ * queue (or marked failed if their upload is gone), and upload and output
+ * directories that belong to no known job are deleted. Finished jobs
+ * are kept in a time-ordered expiry queue; a background thread sleeps until
+ * the next one is due, so cleanup only ever touches expired jobs.
  */
 @Service
 public class JobManager {
 
+    private static final Pattern JOB_ID = Pattern.compile(
+            "[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+
     @Value("${app.job.expiry-hours:1}")
     private int expiryHours;
 
@@ -28,7 +50,163 @@ public class JobManager {
     @Value("${app.output.dir:outputs}")
     private String outputDirConfig;
 
+    @Value("${app.job.store:file}")
+    private String storeType;
+
+    @Value("${app.job.store-dir:jobs}")
+    private String storeDirConfig;
+
     private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiryQueue = new DelayQueue<>();
+    private final List<Job> interrupted = new ArrayList<>();
+    private JobStore store;
+    private Thread expiryThread;
+    private volatile boolean shuttingDown = false;
+
+    private final AtomicLong recoveredJobs = new AtomicLong();
+    private final AtomicLong interruptedJobs = new AtomicLong();
+    private final AtomicLong orphansRemoved = new AtomicLong();
+    private final AtomicLong expiredJobs = new AtomicLong();
+    private final AtomicLong storeErrors = new AtomicLong();
+
+    /**
+     * Opens the job store, recovers its jobs and starts the expiry thread.
+     */
+    @PostConstruct
+    public void start() {
+        store = createStore();
+        recoverJobs();
+        removeOrphans(new File(getUploadDir()));
+        removeOrphans(new File(getOutputDir()));
+
+        expiryThread = new Thread(this::runExpiry, "job-expiry");
+        expiryThread.setDaemon(true);
+        expiryThread.start();
+
+        System.out.println("Job store: " + storeType + ", " + recoveredJobs.get() + " job(s) recovered, "
+                + interruptedJobs.get() + " interrupted, " + orphansRemoved.get() + " orphaned director(ies) removed");
+    }
+
+    /**
+     * Stops the expiry thread and closes the job store.
+     */
+    @PreDestroy
+    public void stop() {
+        if (expiryThread != null) {
+            expiryThread.interrupt();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close job store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the server as shutting down. Conversions interrupted from now on
+     * keep their unfinished status, so the next start resumes them.
+     */
+    public void beginShutdown() {
+        shuttingDown = true;
+    }
+
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    private JobStore createStore() {
+        if ("memory".equalsIgnoreCase(storeType)) {
+            return new InMemoryJobStore();
+        }
+        File storeDir = new File(System.getProperty("user.dir"), storeDirConfig);
+        try {
+            return new FileJobStore(storeDir);
+        } catch (IOException e) {
+            System.err.println("Failed to open job store in " + storeDir + ", jobs will not survive a restart: "
+                    + e.getMessage());
+            storeType = "memory";
+            return new InMemoryJobStore();
+        }
+    }
+
+    /**
+     * Loads the stored jobs. Jobs that were queued or running when the previous
+     * run stopped are queued again if their upload is still there, otherwise
+     * marked failed; completed jobs whose output is gone are dropped.
+     */
+    private void recoverJobs() {
+        List<Job> stored;
+        try {
+            stored = store.loadAll();
+        } catch (IOException e) {
+            System.err.println("Failed to read job store: " + e.getMessage());
+            return;
+        }
+
+        for (Job job : stored) {
+            if (Job.STATUS_COMPLETED.equals(job.getStatus())
+                    && !new File(getOutputDir(), job.getJobId()).isDirectory()) {
+                removeFromStore(job.getJobId());
+                continue;
+            }
+            jobs.put(job.getJobId(), job);
+            recoveredJobs.incrementAndGet();
+            if (!job.isFinished()) {
+                interruptedJobs.incrementAndGet();
+                if (new File(new File(getUploadDir(), job.getJobId()), "input.pdf").isFile()) {
+                    // Progress is reported again as the resumed conversion runs
+                    job.restoreProgress(0, 0, Map.of());
+                    job.setStatus(Job.STATUS_QUEUED);
+                    saveJob(job);
+                    interrupted.add(job);
+                    continue;
+                }
+                failInterruptedJob(job, "Interrupted by a server restart");
+                continue;
+            }
+            scheduleExpiry(job);
+        }
+    }
+
+    /**
+     * Hands over the jobs that were interrupted by the last restart so they can
+     * be queued again; each job is handed over once.
+     */
+    public synchronized List<Job> takeInterruptedJobs() {
+        List<Job> taken = new ArrayList<>(interrupted);
+        interrupted.clear();
+        return taken;
+    }
+
+    /**
+     * Marks an interrupted job failed, e.g. when it cannot be queued again.
+     */
+    public void failInterruptedJob(Job job, String reason) {
+        job.setErrorMessage(reason);
+        job.setFinishedAt(LocalDateTime.now());
+        updateJobStatus(job.getJobId(), Job.STATUS_FAILED);
+    }
+
+    /**
+     * Deletes job directories (named by job ID) that belong to no known job,
+     * such as those of jobs lost with an in-memory store.
+     */
+    private void removeOrphans(File parent) {
+        File[] dirs = parent.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (JOB_ID.matcher(dir.getName()).matches() && !jobs.containsKey(dir.getName())) {
+                try {
+                    FileUtils.deleteDirectory(dir);
+                    orphansRemoved.incrementAndGet();
+                } catch (IOException e) {
+                    System.err.println("Failed to remove orphaned directory " + dir + ": " + e.getMessage());
+                }
+            }
+        }
+    }
 
     /**
      * Gets absolute path for upload directory.
@@ -55,12 +233,51 @@ public class JobManager {
      * @return Created job
      */
     public Job createJob(int dpi, String format, String originalFilename) {
+        return createJob(dpi, format, originalFilename, "all");
+    }
+
+    /**
+     * Creates a new job for a subset of pages.
+     *
+     * @param dpi              DPI setting
+     * @param format           Image format
+     * @param originalFilename Original PDF filename
+     * @param pages            Page spec (e.g. "1-3,7,10-") or "all"
+     * @return Created job
+     */
+    public Job createJob(int dpi, String format, String originalFilename, String pages) {
         String jobId = UUID.randomUUID().toString();
         Job job = new Job(jobId, dpi, format, originalFilename);
+        job.setPages(pages);
         jobs.put(jobId, job);
+        saveJob(job);
         return job;
     }
 
+    /**
+     * Writes the job's current state to the job store, e.g. after setting its parameters.
+     * A store failure is logged; the job keeps running from memory.
+     *
+     * @param job Job to save
+     */
+    public void saveJob(Job job) {
+        try {
+            store.save(job);
+        } catch (IOException e) {
+            storeErrors.incrementAndGet();
+            System.err.println("Failed to save job " + job.getJobId() + ": " + e.getMessage());
+        }
+    }
+
+    private void removeFromStore(String jobId) {
+        try {
+            store.remove(jobId);
+        } catch (IOException e) {
+            storeErrors.incrementAndGet();
+            System.err.println("Failed to remove job " + jobId + " from the job store: " + e.getMessage());
+        }
+    }
+
     /**
      * Gets a job by ID.
      *
@@ -82,7 +299,7 @@ public class JobManager {
     }
 
     /**
-     * Updates job status.
+     * Updates job status and saves the job. Finished jobs are scheduled for expiry.
      *
      * @param jobId  Job ID
      * @param status New status
@@ -91,6 +308,10 @@ public class JobManager {
         Job job = jobs.get(jobId);
         if (job != null) {
             job.setStatus(status);
+            saveJob(job);
+            if (job.isFinished()) {
+                scheduleExpiry(job);
+            }
         }
     }
 
@@ -101,8 +322,9 @@ public class JobManager {
      * @throws IOException if deletion fails
      */
     public void deleteJob(String jobId) throws IOException {
-        // Remove from map
+        // Remove from map and store
         jobs.remove(jobId);
+        removeFromStore(jobId);
 
         // Delete upload directory
         File uploadPath = new File(getUploadDir(), jobId);
@@ -117,28 +339,35 @@ public class JobManager {
         }
     }
 
+    private void scheduleExpiry(Job job) {
+        long expiresAt = job.getExpiresAt(expiryHours).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        expiryQueue.add(new Expiry(job.getJobId(), expiresAt));
+    }
+
     /**
-     * Scheduled task to cleanup expired jobs.
-     * Runs every 15 minutes by default.
+     * Deletes jobs as they expire. Queue entries of jobs that were deleted
+     * since, or that are not finished or expired any more, are skipped.
      */
-    @Scheduled(cron = "${app.cleanup.cron:0 */15 * * * *}")
-    public void cleanupExpiredJobs() {
-        int cleanedCount = 0;
-        
-        for (Map.Entry<String, Job> entry : jobs.entrySet()) {
-            Job job = entry.getValue();
-            if (job.isExpired(expiryHours)) {
-                try {
-                    deleteJob(job.getJobId());
-                    cleanedCount++;
-                } catch (IOException e) {
-                    System.err.println("Failed to cleanup job " + job.getJobId() + ": " + e.getMessage());
-                }
+    private void runExpiry() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Expiry expiry;
+            try {
+                expiry = expiryQueue.take();
+            } catch (InterruptedException e) {
+                return;
             }
-        }
 
-        if (cleanedCount > 0) {
-            System.out.println("Cleaned up " + cleanedCount + " expired job(s)");
+            Job job = jobs.get(expiry.jobId);
+            if (job == null || !job.isFinished() || !job.isExpired(expiryHours)) {
+                continue;
+            }
+            try {
+                deleteJob(job.getJobId());
+                expiredJobs.incrementAndGet();
+                System.out.println("Cleaned up expired job " + job.getJobId());
+            } catch (IOException e) {
+                System.err.println("Failed to cleanup job " + job.getJobId() + ": " + e.getMessage());
+            }
         }
     }
 
@@ -150,4 +379,41 @@ public class JobManager {
     public int getJobCount() {
         return jobs.size();
     }
+
+    /**
+     * Job store, recovery and expiry statistics for the health endpoint.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>(store.getMetrics());
+        metrics.put("recoveredJobs", recoveredJobs.get());
+        metrics.put("interruptedJobs", interruptedJobs.get());
+        metrics.put("orphansRemoved", orphansRemoved.get());
+        metrics.put("expiredJobs", expiredJobs.get());
+        metrics.put("pendingExpiries", expiryQueue.size());
+        metrics.put("storeErrors", storeErrors.get());
+        return metrics;
+    }
+
+    /**
+     * When a finished job expires, ordered by time in the expiry queue.
+     */
+    private static class Expiry implements Delayed {
+        private final String jobId;
+        private final long expiresAtMillis;
+
+        Expiry(String jobId, long expiresAtMillis) {
+            this.jobId = jobId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((Expiry) other).expiresAtMillis);
+        }
+    }
 }
@@ -0,0 +1,110 @@
+package com.pdfconverter.api.service;
+
+import com.pdfconverter.api.model.Job;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saved form of a job, as written by FileJobStore.
+ * Holds the job's parameters, status and page progress; times are ISO-8601 strings.
+ */
+@SuppressWarnings("unused") // Fields used by Gson for JSON serialization
+class JobRecord {
+    private String jobId;
+    private String createdAt;
+    private String finishedAt;
+    private String status;
+    private int dpi;
+    private String format;
+    private String originalFilename;
+    private String contentHash;
+    private String pages;
+    private int width;
+    private int height;
+    private long maxPixels;
+    private int quality;
+    private int compressionLevel;
+    private boolean progressive;
+    private String pngFilter;
+    private String deflateStrategy;
+    private boolean reduceColors;
+    private String colorMode;
+    private boolean multipage;
+    private String tiffCompression;
+    private int documentPages;
+    private int totalPages;
+    private List<Integer> plannedPages;
+    private int processedPages;
+    private int failedPages;
+    private Map<Integer, String> writtenPages;
+    private String errorMessage;
+    private Map<String, Object> metadata;
+
+    static JobRecord from(Job job) {
+        JobRecord record = new JobRecord();
+        record.jobId = job.getJobId();
+        record.createdAt = job.getCreatedAt().toString();
+        record.finishedAt = job.getFinishedAt() != null ? job.getFinishedAt().toString() : null;
+        record.status = job.getStatus();
+        record.dpi = job.getDpi();
+        record.format = job.getFormat();
+        record.originalFilename = job.getOriginalFilename();
+        record.contentHash = job.getContentHash();
+        record.pages = job.getPages();
+        record.width = job.getWidth();
+        record.height = job.getHeight();
+        record.maxPixels = job.getMaxPixels();
+        record.quality = job.getQuality();
+        record.compressionLevel = job.getCompressionLevel();
+        record.progressive = job.isProgressive();
+        record.pngFilter = job.getPngFilter();
+        record.deflateStrategy = job.getDeflateStrategy();
+        record.reduceColors = job.isReduceColors();
+        record.colorMode = job.getColorMode();
+        record.multipage = job.isMultipage();
+        record.tiffCompression = job.getTiffCompression();
+        record.documentPages = job.getDocumentPages();
+        record.totalPages = job.getTotalPages();
+        record.plannedPages = job.getPlannedPages();
+        record.processedPages = job.getProcessedPages();
+        record.failedPages = job.getFailedPages();
+        record.writtenPages = job.getWrittenPages();
+        record.errorMessage = job.getErrorMessage();
+        record.metadata = job.getMetadata();
+        return record;
+    }
+
+    String getJobId() {
+        return jobId;
+    }
+
+    Job toJob() {
+        Job job = new Job(jobId, dpi, format, originalFilename);
+        job.setCreatedAt(LocalDateTime.parse(createdAt));
+        job.setFinishedAt(finishedAt != null ? LocalDateTime.parse(finishedAt) : null);
+        job.setStatus(status);
+        job.setContentHash(contentHash);
+        job.setPages(pages);
+        job.setWidth(width);
+        job.setHeight(height);
+        job.setMaxPixels(maxPixels);
+        job.setQuality(quality);
+        job.setCompressionLevel(compressionLevel);
+        job.setProgressive(progressive);
+        job.setPngFilter(pngFilter);
+        job.setDeflateStrategy(deflateStrategy);
+        job.setReduceColors(reduceColors);
+        job.setColorMode(colorMode);
+        job.setMultipage(multipage);
+        job.setTiffCompression(tiffCompression);
+        job.setDocumentPages(documentPages);
+        job.setTotalPages(totalPages);
+        job.setPlannedPages(plannedPages);
+        job.restoreProgress(processedPages, failedPages, writtenPages != null ? writtenPages : Map.of());
+        job.setErrorMessage(errorMessage);
+        job.setMetadata(metadata);
+        return job;
+    }
+}
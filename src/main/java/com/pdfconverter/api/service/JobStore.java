@@ -0,0 +1,39 @@
+package com.pdfconverter.api.service;
+
+import com.pdfconverter.api.model.Job;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where job state is kept between restarts.
+ * JobManager serves jobs from memory and writes every change through to the
+ * store; the store is only read back on startup.
+ */
+public interface JobStore extends Closeable {
+
+    /**
+     * Reads the jobs saved by earlier runs.
+     */
+    List<Job> loadAll() throws IOException;
+
+    /**
+     * Saves the job's current state, replacing the previous one.
+     */
+    void save(Job job) throws IOException;
+
+    /**
+     * Forgets a job.
+     */
+    void remove(String jobId) throws IOException;
+
+    /**
+     * Store statistics for the health endpoint.
+     */
+    Map<String, Object> getMetrics();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,72 @@
+package com.pdfconverter.api.service;
+
+import com.pdfconverter.core.PageResult;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Page outcomes aggregated over all conversions since startup: how many pages
+ * failed the first pass, which repair strategy recovered them, and which
+ * exceptions pages fail with.
+ */
+@Service
+public class PageStatistics {
+
+    private long pages = 0;
+    private long succeededPages = 0;
+    private long failedPages = 0;
+    private long firstPassFailures = 0;
+    private long attempts = 0;
+    private final Map<String, Long> recoveredByStrategy = new TreeMap<>();
+    private final Map<String, Long> failuresByException = new TreeMap<>();
+
+    /**
+     * Adds the page results of one finished conversion.
+     */
+    public synchronized void record(List<PageResult> results) {
+        if (results == null) {
+            return;
+        }
+        for (PageResult page : results) {
+            pages++;
+            if (page.isSucceeded()) {
+                succeededPages++;
+            } else {
+                failedPages++;
+            }
+
+            List<PageResult.Attempt> pageAttempts = page.getAttempts();
+            attempts += pageAttempts.size();
+            if (!pageAttempts.isEmpty() && !pageAttempts.get(0).isSuccess()) {
+                firstPassFailures++;
+                if (page.isSucceeded()) {
+                    recoveredByStrategy.merge(page.getStrategy(), 1L, Long::sum);
+                }
+            }
+            for (PageResult.Attempt attempt : pageAttempts) {
+                if (!attempt.isSuccess()) {
+                    failuresByException.merge(attempt.getExceptionClass(), 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot of the aggregated page outcomes.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("pages", pages);
+        metrics.put("succeededPages", succeededPages);
+        metrics.put("failedPages", failedPages);
+        metrics.put("firstPassFailures", firstPassFailures);
+        metrics.put("attempts", attempts);
+        metrics.put("recoveredByStrategy", new TreeMap<>(recoveredByStrategy));
+        metrics.put("failedAttemptsByException", new TreeMap<>(failuresByException));
+        return metrics;
+    }
+}
@@ -0,0 +1,283 @@
+package com.pdfconverter.api.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ToNumberPolicy;
+import com.google.gson.reflect.TypeToken;
+import com.pdfconverter.util.LinkUtility;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of finished conversions.
+ * Entries are keyed by the SHA-256 of the input PDF plus the render parameters
+ * and hold the output images, metadata.json and the API result. The cache is
+ * bounded by total size on disk and evicts least recently used entries.
+ * Identical conversions running at the same time are de-duplicated: the first
+ * one claims the key and later ones wait for its result.
+ */
+@Service
+public class ResultCache {
+
+    private static final String RESULT_FILE = "result.json";
+    private static final Type RESULT_TYPE = new TypeToken<Map<String, Object>>() { }.getType();
+
+    @Value("${app.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.cache.dir:cache}")
+    private String cacheDirConfig;
+
+    @Value("${app.cache.max-size-mb:1024}")
+    private long maxSizeMb;
+
+    private final Gson gson = new GsonBuilder()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .create();
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong stores = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong deduplicated = new AtomicLong(0);
+
+    /**
+     * Rebuild the index from entries left on disk by a previous run.
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        File[] dirs = getCacheDir().listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+
+        Arrays.sort(dirs, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File dir : dirs) {
+                if (!new File(dir, RESULT_FILE).exists()) {
+                    // Incomplete entry from an interrupted store
+                    FileUtils.deleteQuietly(dir);
+                    continue;
+                }
+                long size = FileUtils.sizeOfDirectory(dir);
+                entrySizes.put(dir.getName(), size);
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+
+        System.out.println("Result cache: " + entrySizes.size() + " entries, "
+                + (totalBytes / (1024 * 1024)) + " MB");
+    }
+
+    /**
+     * Gets the absolute path of the cache directory, creating it if needed.
+     */
+    private File getCacheDir() {
+        File dir = new File(System.getProperty("user.dir"), cacheDirConfig);
+        try {
+            Files.createDirectories(dir.toPath());
+        } catch (IOException e) {
+            // Reported when an entry is stored
+        }
+        return dir;
+    }
+
+    public boolean isEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Looks up a cached result and materializes its files in the target directory.
+     *
+     * @param key       Cache key
+     * @param targetDir Job output directory to populate
+     * @return Stored result with file paths pointing into targetDir, or null on a miss
+     * @throws IOException if the cached files cannot be copied
+     */
+    public Map<String, Object> lookup(String key, File targetDir) throws IOException {
+        Map<String, Object> result;
+        synchronized (this) {
+            if (!entrySizes.containsKey(key)) {
+                return null;
+            }
+            File entryDir = new File(getCacheDir(), key);
+
+            // Link (or copy) and read the result while holding the lock so eviction cannot race the read
+            Files.createDirectories(targetDir.toPath());
+            File[] files = entryDir.listFiles(File::isFile);
+            if (files != null) {
+                for (File file : files) {
+                    if (!file.getName().equals(RESULT_FILE)) {
+                        LinkUtility.linkOrCopy(file, new File(targetDir, file.getName()));
+                    }
+                }
+            }
+            try (Reader reader = new FileReader(new File(entryDir, RESULT_FILE))) {
+                result = gson.fromJson(reader, RESULT_TYPE);
+            }
+            entryDir.setLastModified(System.currentTimeMillis());
+        }
+
+        // Point file entries at the new job's output directory
+        Object files = result.get("files");
+        if (files instanceof List<?> fileList) {
+            for (Object item : fileList) {
+                if (item instanceof Map<?, ?>) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> fileInfo = (Map<String, Object>) item;
+                    Object page = fileInfo.get("page");
+                    if (page != null) {
+                        fileInfo.put("path", new File(targetDir, page.toString()).getAbsolutePath());
+                    }
+                }
+            }
+        }
+
+        hits.incrementAndGet();
+        return result;
+    }
+
+    /**
+     * Stores a finished conversion.
+     *
+     * @param key       Cache key
+     * @param outputDir Job output directory holding images and metadata.json
+     * @param result    API result to return on future hits
+     */
+    public void store(String key, File outputDir, Map<String, Object> result) {
+        File cacheDir = getCacheDir();
+        File stagingDir = new File(cacheDir, ".staging-" + UUID.randomUUID());
+        try {
+            Files.createDirectories(stagingDir.toPath());
+            File[] files = outputDir.listFiles(File::isFile);
+            if (files != null) {
+                for (File file : files) {
+                    LinkUtility.linkOrCopy(file, new File(stagingDir, file.getName()));
+                }
+            }
+            try (Writer writer = new FileWriter(new File(stagingDir, RESULT_FILE))) {
+                gson.toJson(result, writer);
+            }
+
+            long size = FileUtils.sizeOfDirectory(stagingDir);
+            if (size > maxSizeMb * 1024 * 1024) {
+                FileUtils.deleteQuietly(stagingDir);
+                return;
+            }
+
+            synchronized (this) {
+                File entryDir = new File(cacheDir, key);
+                if (entrySizes.containsKey(key)) {
+                    FileUtils.deleteQuietly(stagingDir);
+                    return;
+                }
+                Files.move(stagingDir.toPath(), entryDir.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                entrySizes.put(key, size);
+                totalBytes += size;
+                stores.incrementAndGet();
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to cache result " + key + ": " + e.getMessage());
+            FileUtils.deleteQuietly(stagingDir);
+        }
+    }
+
+    /**
+     * Claims a key before rendering it.
+     *
+     * @param key Cache key
+     * @return null if the caller now owns the key and must call {@link #release(String, boolean)};
+     *         otherwise a future completing when the current owner finishes
+     */
+    public CompletableFuture<Boolean> claim(String key) {
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            deduplicated.incrementAndGet();
+        } else {
+            // A miss is counted once per conversion that actually has to render
+            misses.incrementAndGet();
+        }
+        return existing;
+    }
+
+    /**
+     * Releases a claimed key and wakes up waiting duplicates.
+     *
+     * @param key    Cache key
+     * @param stored Whether a result was stored for the key
+     */
+    public void release(String key, boolean stored) {
+        CompletableFuture<Boolean> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(stored);
+        }
+    }
+
+    /**
+     * Evicts least recently used entries until the cache fits its size bound.
+     * Caller must hold the monitor.
+     */
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            FileUtils.deleteQuietly(new File(getCacheDir(), eldest.getKey()));
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Snapshot of cache size and hit/miss statistics.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", cacheEnabled);
+        metrics.put("entries", entrySizes.size());
+        metrics.put("sizeBytes", totalBytes);
+        metrics.put("maxSizeBytes", maxSizeMb * 1024 * 1024);
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("stores", stores.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("deduplicated", deduplicated.get());
+        return metrics;
+    }
+}
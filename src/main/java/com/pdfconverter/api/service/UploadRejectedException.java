@@ -0,0 +1,25 @@
+package com.pdfconverter.api.service;
+
+import java.io.IOException;
+
+/**
+ * Thrown when an upload is not a PDF or exceeds the size limit.
+ * The partially written file has already been removed.
+ */
+public class UploadRejectedException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean tooLarge;
+
+    public UploadRejectedException(String message, boolean tooLarge) {
+        super(message);
+        this.tooLarge = tooLarge;
+    }
+
+    /**
+     * @return true if the upload was rejected for its size rather than its content
+     */
+    public boolean isTooLarge() {
+        return tooLarge;
+    }
+}
@@ -0,0 +1,90 @@
+package com.pdfconverter.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * PDF source over byte buffers: the whole file on the heap for small PDFs, or
+ * memory-mapped segments of a large one. Segments are shared read-only between
+ * all documents loaded from the same file; each reader keeps its own position.
+ * Bytes read counts what the parser actually touched, i.e. the pages the OS
+ * had to fault in at most.
+ */
+class BufferRandomAccessRead extends CountingRandomAccessRead {
+    private final ByteBuffer[] segments;
+    private final long segmentSize;
+    private final long length;
+    private long position = 0;
+
+    /**
+     * @param segments    Buffers in file order; all but the last must be segmentSize long
+     * @param segmentSize Size of every segment but the last
+     * @param length      Total length of the file
+     */
+    BufferRandomAccessRead(DocumentLoader loader, ByteBuffer[] segments, long segmentSize, long length) {
+        super(loader);
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.length = length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (position >= length) {
+            return -1;
+        }
+        int b = segments[(int) (position / segmentSize)].get((int) (position % segmentSize)) & 0xff;
+        position++;
+        bytesRead++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        int total = 0;
+        while (total < len && position < length) {
+            ByteBuffer segment = segments[(int) (position / segmentSize)];
+            int offsetInSegment = (int) (position % segmentSize);
+            int count = Math.min(len - total, segment.limit() - offsetInSegment);
+            // Absolute bulk get keeps the shared buffer's position untouched
+            segment.get(offsetInSegment, b, off + total, count);
+            total += count;
+            position += count;
+        }
+        bytesRead += total;
+        return total;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        checkClosed();
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = Math.min(position, length);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    protected void release() {
+        // Mapped segments are unmapped by the garbage collector once no reader uses them
+    }
+}
@@ -0,0 +1,114 @@
+package com.pdfconverter.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PDF source reading a file through positional FileChannel reads into a
+ * small page buffer. Unlike a memory mapping, the file is released as soon as
+ * the document is closed, which matters where mapped files cannot be deleted
+ * (Windows).
+ */
+class ChannelRandomAccessRead extends CountingRandomAccessRead {
+    private static final int PAGE_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long length;
+    private final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+    private long pageStart = 0;
+    private int pageLength = 0;
+    private long position = 0;
+
+    ChannelRandomAccessRead(DocumentLoader loader, File file) throws IOException {
+        super(loader);
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.length = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        if (position >= length) {
+            return -1;
+        }
+        if (!inPage(position)) {
+            loadPage(position);
+        }
+        return page.get((int) (position++ - pageStart)) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+
+        // Large reads (stream data) bypass the page buffer
+        if (len >= PAGE_SIZE && !inPage(position)) {
+            int count = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, length - position)), position);
+            if (count > 0) {
+                position += count;
+                bytesRead += count;
+            }
+            return count;
+        }
+
+        if (!inPage(position)) {
+            loadPage(position);
+        }
+        int offsetInPage = (int) (position - pageStart);
+        int count = Math.min(len, pageLength - offsetInPage);
+        page.get(offsetInPage, b, off, count);
+        position += count;
+        return count;
+    }
+
+    private boolean inPage(long position) {
+        return position >= pageStart && position < pageStart + pageLength;
+    }
+
+    private void loadPage(long position) throws IOException {
+        page.clear();
+        pageStart = position;
+        pageLength = 0;
+        while (page.hasRemaining()) {
+            int count = channel.read(page, pageStart + pageLength);
+            if (count < 0) {
+                break;
+            }
+            pageLength += count;
+        }
+        bytesRead += pageLength;
+    }
+
+    @Override
+    public long getPosition() {
+        return position;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        checkClosed();
+        if (position < 0) {
+            throw new IOException("Invalid position " + position);
+        }
+        this.position = Math.min(position, length);
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    protected void release() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,45 @@
+package com.pdfconverter.core;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Callback for observing the progress of a conversion.
+ * All methods may be invoked from rendering worker threads.
+ */
+public interface ConversionListener {
+
+    /**
+     * Listener that ignores all events.
+     */
+    ConversionListener NONE = new ConversionListener() {
+    };
+
+    /**
+     * Called when the conversion enters a new stage (e.g. "rendering", "repairing").
+     */
+    default void onStageChanged(String stage) {
+    }
+
+    /**
+     * Called once the document is opened and the pages to render are known.
+     *
+     * @param documentPages Number of pages in the document
+     * @param pageNumbers   1-based numbers of the pages that will be rendered, in order
+     */
+    default void onPagesPlanned(int documentPages, List<Integer> pageNumbers) {
+    }
+
+    /**
+     * Called after each page of the initial rendering pass finishes.
+     */
+    default void onPageFinished(int pageNumber, boolean success) {
+    }
+
+    /**
+     * Called after a page image has been fully written to disk, in any pass
+     * (including repair and fallback retries).
+     */
+    default void onPageWritten(int pageNumber, File outputFile) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+
+/**
+ * Options controlling how a PDF is rendered and written.
+ */
+public class ConversionOptions {
+    private int dpi = 150;
+    private String format = "jpg";
+    private PageSelection pageSelection = PageSelection.all();
+    private int targetWidth = 0;
+    private int targetHeight = 0;
+    private long maxPixels = 0;
+    private EncoderSettings encoderSettings = EncoderSettings.defaults();
+    private String colorMode = COLOR_MODE_COLOR;
+    private boolean multipage = false;
+
+    public static final String COLOR_MODE_COLOR = "color";
+    public static final String COLOR_MODE_GRAY = "gray";
+    public static final String COLOR_MODE_BILEVEL = "bilevel";
+
+    public ConversionOptions() {
+    }
+
+    public ConversionOptions(int dpi, String format) {
+        this.dpi = dpi;
+        this.format = format;
+    }
+
+    // Getters and setters
+    public int getDpi() {
+        return dpi;
+    }
+
+    public void setDpi(int dpi) {
+        this.dpi = dpi;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public PageSelection getPageSelection() {
+        return pageSelection;
+    }
+
+    public void setPageSelection(PageSelection pageSelection) {
+        this.pageSelection = pageSelection != null ? pageSelection : PageSelection.all();
+    }
+
+    /**
+     * Target image width in pixels; 0 if not set. Overrides the DPI.
+     */
+    public int getTargetWidth() {
+        return targetWidth;
+    }
+
+    public void setTargetWidth(int targetWidth) {
+        this.targetWidth = targetWidth;
+    }
+
+    /**
+     * Target image height in pixels; 0 if not set. Overrides the DPI.
+     */
+    public int getTargetHeight() {
+        return targetHeight;
+    }
+
+    public void setTargetHeight(int targetHeight) {
+        this.targetHeight = targetHeight;
+    }
+
+    /**
+     * Upper bound on pixels per page; 0 if not set. Applies to DPI and target sizes.
+     */
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    public void setMaxPixels(long maxPixels) {
+        this.maxPixels = maxPixels;
+    }
+
+    public EncoderSettings getEncoderSettings() {
+        return encoderSettings;
+    }
+
+    public void setEncoderSettings(EncoderSettings encoderSettings) {
+        this.encoderSettings = encoderSettings != null ? encoderSettings : EncoderSettings.defaults();
+    }
+
+    /**
+     * Raster type: color (RGB), gray (8-bit) or bilevel (1-bit black and white).
+     */
+    public String getColorMode() {
+        return colorMode;
+    }
+
+    public void setColorMode(String colorMode) {
+        this.colorMode = colorMode != null ? colorMode : COLOR_MODE_COLOR;
+    }
+
+    /**
+     * PDFBox image type for the color mode.
+     */
+    public ImageType getImageType() {
+        return switch (colorMode) {
+            case COLOR_MODE_GRAY -> ImageType.GRAY;
+            case COLOR_MODE_BILEVEL -> ImageType.BINARY;
+            default -> ImageType.RGB;
+        };
+    }
+
+    /**
+     * Raster bits per pixel for the color mode (INT_RGB, BYTE_GRAY, BYTE_BINARY).
+     */
+    public int getBitsPerPixel() {
+        return switch (colorMode) {
+            case COLOR_MODE_GRAY -> 8;
+            case COLOR_MODE_BILEVEL -> 1;
+            default -> 32;
+        };
+    }
+
+    /**
+     * Write all pages into one multi-page TIFF instead of a file per page.
+     */
+    public boolean isMultipage() {
+        return multipage;
+    }
+
+    public void setMultipage(boolean multipage) {
+        this.multipage = multipage;
+    }
+
+    public static boolean isValidColorMode(String colorMode) {
+        return COLOR_MODE_COLOR.equals(colorMode) || COLOR_MODE_GRAY.equals(colorMode)
+                || COLOR_MODE_BILEVEL.equals(colorMode);
+    }
+
+    public boolean hasTargetSize() {
+        return targetWidth > 0 || targetHeight > 0;
+    }
+
+    /**
+     * Computes the render scale (pixels per PDF point) for a page.
+     * A target width and/or height is fitted to the page's displayed size
+     * (crop box, rotation applied), preserving its aspect ratio; otherwise the
+     * DPI is used. The result is then capped by maxPixels and by maxScale.
+     *
+     * @param page     Page to render
+     * @param maxScale Additional upper bound on the scale (e.g. 1.0 for 72 DPI)
+     * @return Scale to pass to PDFRenderer.renderImage
+     */
+    public float computeScale(PDPage page, float maxScale) {
+        PDRectangle box = page.getCropBox();
+        boolean rotated = page.getRotation() % 180 != 0;
+        float widthPt = rotated ? box.getHeight() : box.getWidth();
+        float heightPt = rotated ? box.getWidth() : box.getHeight();
+
+        float scale;
+        if (hasTargetSize()) {
+            // PDFRenderer floors the pixel size, so aim half a pixel high
+            scale = Float.MAX_VALUE;
+            if (targetWidth > 0) {
+                scale = Math.min(scale, (targetWidth + 0.5f) / widthPt);
+            }
+            if (targetHeight > 0) {
+                scale = Math.min(scale, (targetHeight + 0.5f) / heightPt);
+            }
+        } else {
+            scale = dpi / 72f;
+        }
+
+        if (maxPixels > 0) {
+            scale = Math.min(scale, (float) Math.sqrt(maxPixels / ((double) widthPt * heightPt)));
+        }
+        return Math.min(scale, maxScale);
+    }
+}
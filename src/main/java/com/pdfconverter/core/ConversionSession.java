@@ -0,0 +1,62 @@
+package com.pdfconverter.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Documents opened during one conversion: the original PDF and every repaired
+ * copy. Their document pools stay open until the conversion ends, so repair
+ * retries and the DPI fallback re-render failing pages from documents that are
+ * already parsed (xref table, fonts, resources) instead of loading them again.
+ * Temporary files such as repaired copies are deleted when the session closes.
+ */
+public class ConversionSession implements Closeable {
+    private final DocumentLoader loader;
+    private final Map<File, DocumentHandlePool> pools = new LinkedHashMap<>();
+    private final List<File> temporaryFiles = new ArrayList<>();
+    private boolean closed = false;
+
+    public ConversionSession(DocumentLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Gets the document pool for a file, opening it on first use.
+     */
+    public synchronized DocumentHandlePool getPool(File pdfFile) {
+        if (closed) {
+            throw new IllegalStateException("Conversion session is closed");
+        }
+        return pools.computeIfAbsent(pdfFile.getAbsoluteFile(), file -> new DocumentHandlePool(file, loader));
+    }
+
+    /**
+     * Deletes a temporary file when the session closes, after its documents are closed.
+     */
+    public synchronized void deleteOnClose(File file) {
+        temporaryFiles.add(file);
+    }
+
+    /**
+     * Closes every pool and deletes the temporary files; documents still
+     * borrowed are closed when released.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        for (DocumentHandlePool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+        for (File file : temporaryFiles) {
+            if (file.exists() && !file.delete()) {
+                System.err.println("Warning: Failed to delete " + file);
+            }
+        }
+        temporaryFiles.clear();
+    }
+}
@@ -0,0 +1,93 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * Base class of the PDF sources opened by {@link DocumentLoader}.
+ * Implements the derived RandomAccessRead operations on top of a few primitives
+ * and counts the bytes taken from the underlying file, which are reported to
+ * the loader when the document is closed.
+ */
+abstract class CountingRandomAccessRead implements RandomAccessRead {
+    private final DocumentLoader loader;
+    protected long bytesRead = 0;
+    private boolean closed = false;
+
+    CountingRandomAccessRead(DocumentLoader loader) {
+        this.loader = loader;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int peek() throws IOException {
+        int b = read();
+        if (b != -1) {
+            rewind(1);
+        }
+        return b;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException {
+        seek(getPosition() - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length) {
+            int count = read(bytes, offset, length - offset);
+            if (count < 0) {
+                throw new EOFException("Premature end of file");
+            }
+            offset += count;
+        }
+        return bytes;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException {
+        return getPosition() >= length();
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(length() - getPosition(), Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (loader != null) {
+            loader.recordBytesRead(bytesRead);
+        }
+        release();
+    }
+
+    protected void checkClosed() throws IOException {
+        if (closed) {
+            throw new IOException("PDF source already closed");
+        }
+    }
+
+    /**
+     * Releases the underlying file, if any.
+     */
+    protected abstract void release() throws IOException;
+}
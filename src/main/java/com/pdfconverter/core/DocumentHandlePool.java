@@ -0,0 +1,135 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pool of independently loaded PDDocument/PDFRenderer pairs for one PDF file.
+ * PDFBox documents are not thread-safe, so every rendering worker borrows its own
+ * handle and never shares it while rendering. Handles are reused once returned,
+ * so a document is parsed at most once per concurrent worker.
+ */
+public class DocumentHandlePool implements Closeable {
+    private final File pdfFile;
+    private final DocumentLoader loader;
+    private final Queue<Handle> idleHandles = new ConcurrentLinkedQueue<>();
+    private final List<Handle> allHandles = new CopyOnWriteArrayList<>();
+    private volatile boolean closed = false;
+    private volatile boolean subsamplingAllowed = false;
+
+    /**
+     * A loaded document and the renderer bound to it.
+     */
+    public static class Handle {
+        private final PDDocument document;
+        private final PDFRenderer renderer;
+
+        Handle(PDDocument document, boolean subsamplingAllowed) {
+            this.document = document;
+            this.renderer = new PDFRenderer(document);
+            this.renderer.setSubsamplingAllowed(subsamplingAllowed);
+        }
+
+        public PDDocument getDocument() {
+            return document;
+        }
+
+        public PDFRenderer getRenderer() {
+            return renderer;
+        }
+    }
+
+    public DocumentHandlePool(File pdfFile) {
+        this(pdfFile, new DocumentLoader());
+    }
+
+    /**
+     * @param loader Loader shared by all handles, so the file is read or mapped only once
+     */
+    public DocumentHandlePool(File pdfFile, DocumentLoader loader) {
+        this.pdfFile = pdfFile;
+        this.loader = loader;
+    }
+
+    /**
+     * Lets renderers subsample large images instead of decoding them at full
+     * resolution. Only worthwhile for small output sizes such as thumbnails.
+     * Affects handles opened after the call.
+     */
+    public void setSubsamplingAllowed(boolean subsamplingAllowed) {
+        this.subsamplingAllowed = subsamplingAllowed;
+    }
+
+    /**
+     * Borrows a handle for exclusive use by the calling thread.
+     * Opens a new document if no idle handle is available.
+     *
+     * @return Handle that must be returned with {@link #release(Handle)}
+     * @throws IOException if the document cannot be loaded
+     */
+    public Handle borrow() throws IOException {
+        if (closed) {
+            throw new IOException("Document pool is closed: " + pdfFile.getName());
+        }
+
+        Handle handle = idleHandles.poll();
+        if (handle != null) {
+            return handle;
+        }
+
+        handle = new Handle(loader.load(pdfFile), subsamplingAllowed);
+        allHandles.add(handle);
+        return handle;
+    }
+
+    /**
+     * Returns a borrowed handle so other workers can reuse it.
+     * If the pool was closed while the handle was out, its document is closed now.
+     */
+    public void release(Handle handle) {
+        if (handle == null) {
+            return;
+        }
+        idleHandles.offer(handle);
+        if (closed) {
+            closeIdleHandles();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Number of documents currently open in this pool.
+     */
+    public int getOpenedCount() {
+        return allHandles.size();
+    }
+
+    /**
+     * Closes the pool. Idle documents are closed immediately; documents still
+     * borrowed are closed when they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        closeIdleHandles();
+    }
+
+    private void closeIdleHandles() {
+        Handle handle;
+        while ((handle = idleHandles.poll()) != null) {
+            allHandles.remove(handle);
+            loader.close(handle.getDocument());
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.ScratchFile;
+import org.apache.pdfbox.pdfparser.PDFParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Loads PDF documents for one job without copying the input.
+ *
+ * PDDocument.load(File, MemoryUsageSetting.setupTempFileOnly()) reads the file
+ * through its own buffer and copies every stream into a new scratch file, once
+ * per loaded document. This loader instead parses straight from the uploaded file:
+ * small files are read into the heap once, larger ones are memory-mapped (or read
+ * through a FileChannel), and each file's source is shared by every document
+ * loaded from it.
+ * PDFBox's scratch buffers are kept in main memory up to a per-job budget split
+ * between the documents open at once, and only spill to a temp file beyond it.
+ *
+ * The loader counts the bytes read from the input and the scratch bytes
+ * written to disk, so they can be reported per job.
+ */
+public class DocumentLoader {
+    private static final long MB = 1024L * 1024L;
+    private static final long SEGMENT_SIZE = 1024L * MB;
+
+    private final long inMemoryThresholdBytes;
+    private final long scratchMemoryBytes;
+    private final boolean mapped;
+    private final File scratchRoot;
+    private volatile int concurrency = 1;
+
+    private final Map<PDDocument, Path> scratchDirs = new ConcurrentHashMap<>();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong scratchBytesWritten = new AtomicLong();
+    private final AtomicInteger documentsLoaded = new AtomicInteger();
+
+    private final Map<File, Source> sources = new HashMap<>();
+    private boolean anyInMemory = false;
+
+    /**
+     * Loader with the defaults used outside the API (16 MB in memory, 32 MB scratch memory, mapped).
+     */
+    public DocumentLoader() {
+        this(16 * MB, 32 * MB, true, null);
+    }
+
+    /**
+     * @param inMemoryThresholdBytes Files up to this size are read into the heap
+     * @param scratchMemoryBytes     Main memory for PDFBox scratch buffers, shared by the open documents
+     * @param mapped                 Memory-map larger files; otherwise read them through a FileChannel
+     * @param scratchRoot            Directory for scratch files that exceed the memory budget (null = temp dir)
+     */
+    public DocumentLoader(long inMemoryThresholdBytes, long scratchMemoryBytes, boolean mapped, File scratchRoot) {
+        this.inMemoryThresholdBytes = inMemoryThresholdBytes;
+        this.scratchMemoryBytes = scratchMemoryBytes;
+        this.mapped = mapped;
+        this.scratchRoot = scratchRoot;
+    }
+
+    /**
+     * Sets how many documents are expected to be open at once (e.g. render
+     * threads); each gets an equal share of the scratch memory budget.
+     */
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Loads a document. Close it with {@link #close(PDDocument)} so its scratch usage is counted.
+     */
+    public PDDocument load(File pdfFile) throws IOException {
+        RandomAccessRead source = openSource(pdfFile);
+        Path scratchDir = null;
+        ScratchFile scratchFile = null;
+        try {
+            MemoryUsageSetting memoryUsage = MemoryUsageSetting.setupMixed(
+                    Math.max(1, scratchMemoryBytes / concurrency));
+            scratchDir = Files.createTempDirectory(getScratchRoot().toPath(), "pdf-scratch-");
+            memoryUsage.setTempDir(scratchDir.toFile());
+
+            scratchFile = new ScratchFile(memoryUsage);
+            PDFParser parser = new PDFParser(source, "", scratchFile);
+            parser.parse();
+            PDDocument document = parser.getPDDocument();
+
+            // Set lenient parsing to handle structure issues
+            document.setAllSecurityToBeRemoved(true);
+            scratchDirs.put(document, scratchDir);
+            documentsLoaded.incrementAndGet();
+            return document;
+        } catch (IOException | RuntimeException e) {
+            if (scratchFile != null) {
+                scratchFile.close();
+            }
+            source.close();
+            deleteScratchDir(scratchDir);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes a document loaded by this loader, recording the scratch bytes it spilled to disk.
+     */
+    public void close(PDDocument document) {
+        Path scratchDir = scratchDirs.remove(document);
+        if (scratchDir != null) {
+            scratchBytesWritten.addAndGet(directorySize(scratchDir));
+        }
+        try {
+            document.close();
+        } catch (IOException e) {
+            System.err.println("Warning: Failed to close PDF document: " + e.getMessage());
+        } finally {
+            deleteScratchDir(scratchDir);
+        }
+    }
+
+    /**
+     * Opens a reader on the file's shared source, creating the source on first use.
+     */
+    private RandomAccessRead openSource(File pdfFile) throws IOException {
+        long length = pdfFile.length();
+        if (length > inMemoryThresholdBytes && !mapped) {
+            return new ChannelRandomAccessRead(this, pdfFile);
+        }
+
+        Source source;
+        synchronized (this) {
+            source = sources.get(pdfFile);
+            if (source == null || source.modified != pdfFile.lastModified() || source.length != length) {
+                source = length <= inMemoryThresholdBytes ? readFully(pdfFile) : map(pdfFile);
+                sources.put(pdfFile, source);
+                anyInMemory |= source.inMemory;
+            }
+        }
+
+        ByteBuffer[] segments = new ByteBuffer[source.segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = source.segments[i].duplicate();
+        }
+        // Heap copies were counted when the file was read
+        return new BufferRandomAccessRead(source.inMemory ? null : this, segments, source.segmentSize, source.length);
+    }
+
+    private Source readFully(File pdfFile) throws IOException {
+        byte[] bytes = Files.readAllBytes(pdfFile.toPath());
+        // The whole file is read up front; readers over it do no further I/O
+        bytesRead.addAndGet(bytes.length);
+        return new Source(new ByteBuffer[]{ByteBuffer.wrap(bytes)}, Math.max(1, bytes.length), bytes.length,
+                pdfFile.lastModified(), true);
+    }
+
+    private Source map(File pdfFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(pdfFile.toPath(), StandardOpenOption.READ)) {
+            long length = channel.size();
+            int count = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            ByteBuffer[] segments = new ByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, length - start));
+            }
+            return new Source(segments, SEGMENT_SIZE, length, pdfFile.lastModified(), false);
+        }
+    }
+
+    /**
+     * Called by the readers when their document is closed.
+     */
+    void recordBytesRead(long bytes) {
+        bytesRead.addAndGet(bytes);
+    }
+
+    private File getScratchRoot() throws IOException {
+        File root = scratchRoot != null ? scratchRoot : new File(System.getProperty("java.io.tmpdir"));
+        if (!root.exists()) {
+            Files.createDirectories(root.toPath());
+        }
+        return root;
+    }
+
+    private static long directorySize(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteScratchDir(Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            // Already gone
+        }
+        dir.toFile().delete();
+    }
+
+    /**
+     * Bytes read from input files; readers report theirs when their document is closed.
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Bytes PDFBox spilled to scratch files after exceeding the memory budget.
+     */
+    public long getScratchBytesWritten() {
+        return scratchBytesWritten.get();
+    }
+
+    public int getDocumentsLoaded() {
+        return documentsLoaded.get();
+    }
+
+    /**
+     * Load statistics for the job metadata.
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("documentsLoaded", getDocumentsLoaded());
+        statistics.put("bytesRead", getBytesRead());
+        statistics.put("scratchBytesWritten", getScratchBytesWritten());
+        statistics.put("scratchMemoryBytes", scratchMemoryBytes);
+        statistics.put("loadMode", anyInMemory ? "memory" : mapped ? "mapped" : "channel");
+        return statistics;
+    }
+
+    /**
+     * Buffers of one loaded file, shared by all its readers.
+     */
+    private static class Source {
+        private final ByteBuffer[] segments;
+        private final long segmentSize;
+        private final long length;
+        private final long modified;
+        private final boolean inMemory;
+
+        Source(ByteBuffer[] segments, long segmentSize, long length, long modified, boolean inMemory) {
+            this.segments = segments;
+            this.segmentSize = segmentSize;
+            this.length = length;
+            this.modified = modified;
+            this.inMemory = inMemory;
+        }
+    }
+}
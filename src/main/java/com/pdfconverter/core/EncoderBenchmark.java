@@ -0,0 +1,148 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Command-line benchmark comparing encoder throughput and output size per setting.
+ * Pages are rendered once up front so only encoding is measured.
+ *
+ * Usage: EncoderBenchmark <pdf> [dpi] [pages] [iterations]
+ */
+public class EncoderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EncoderBenchmark <pdf> [dpi] [pages] [iterations]");
+            System.exit(1);
+        }
+
+        File pdf = new File(args[0]);
+        int dpi = args.length > 1 ? Integer.parseInt(args[1]) : 150;
+        int maxPages = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int iterations = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        List<BufferedImage> images = renderPages(pdf, dpi, maxPages);
+        long pixelsPerRound = 0;
+        for (BufferedImage image : images) {
+            pixelsPerRound += (long) image.getWidth() * image.getHeight();
+        }
+
+        System.out.printf("%d page(s) at %d DPI, %d iteration(s)%n", images.size(), dpi, iterations);
+        System.out.printf("%-14s %-18s %12s %12s %10s%n", "encoder", "settings", "avg bytes", "ms/page", "MP/s");
+
+        ImageWriter imageWriter = new ImageWriter();
+        ImageWriter imageIOWriter = new ImageWriter();
+        imageIOWriter.registerEncoder("png", new ImageIOEncoder("png"));
+
+        // Measure the parallel PNG encoder with every core available to one image
+        int cores = Runtime.getRuntime().availableProcessors();
+        ExecutorService deflatePool = Executors.newFixedThreadPool(cores);
+        PngEncoder.setDeflateExecutor(deflatePool, cores);
+        try {
+            runCandidates(images, iterations, imageWriter, imageIOWriter, pixelsPerRound);
+        } finally {
+            PngEncoder.setDeflateExecutor(null, 1);
+            deflatePool.shutdownNow();
+        }
+    }
+
+    private static void runCandidates(List<BufferedImage> images, int iterations, ImageWriter imageWriter,
+                                      ImageWriter imageIOWriter, long pixelsPerRound) throws IOException {
+        for (Map.Entry<String, EncoderSettings> candidate : candidates().entrySet()) {
+            String format = candidate.getKey().substring(0, 3);
+            EncoderSettings settings = candidate.getValue();
+            ImageWriter writer = candidate.getKey().contains("imageio") ? imageIOWriter : imageWriter;
+
+            // Warm-up round, also used for the output size
+            long totalBytes = 0;
+            for (BufferedImage image : images) {
+                totalBytes += encode(writer, image, format, settings);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                for (BufferedImage image : images) {
+                    encode(writer, image, format, settings);
+                }
+            }
+            double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+            double msPerPage = elapsedMs / (iterations * images.size());
+            double megapixelsPerSecond = pixelsPerRound * iterations / 1_000_000.0 / (elapsedMs / 1000.0);
+
+            System.out.printf("%-14s %-18s %12d %12.1f %10.1f%n", writer.getEncoder(format), settings,
+                    totalBytes / images.size(), msPerPage, megapixelsPerSecond);
+        }
+    }
+
+    private static Map<String, EncoderSettings> candidates() {
+        Map<String, EncoderSettings> candidates = new LinkedHashMap<>();
+        for (float quality : new float[]{0.5f, 0.75f, 0.85f, 0.95f}) {
+            EncoderSettings settings = new EncoderSettings();
+            settings.setQuality(quality);
+            candidates.put("jpg-q" + quality, settings);
+        }
+        EncoderSettings progressive = new EncoderSettings();
+        progressive.setQuality(0.75f);
+        progressive.setProgressive(true);
+        candidates.put("jpg-progressive", progressive);
+
+        for (int level : new int[]{1, 4, 6, 9}) {
+            EncoderSettings settings = new EncoderSettings();
+            settings.setCompressionLevel(level);
+            candidates.put("png-imageio-z" + level, settings);
+        }
+        for (int level : new int[]{1, 4, 6, 9}) {
+            EncoderSettings settings = new EncoderSettings();
+            settings.setCompressionLevel(level);
+            candidates.put("png-z" + level, settings);
+        }
+        for (String filter : new String[]{"none", "up", "paeth"}) {
+            EncoderSettings settings = new EncoderSettings();
+            settings.setPngFilter(filter);
+            candidates.put("png-f" + filter, settings);
+        }
+        EncoderSettings huffman = new EncoderSettings();
+        huffman.setDeflateStrategy("huffman");
+        candidates.put("png-huffman", huffman);
+        EncoderSettings fullColor = new EncoderSettings();
+        fullColor.setReduceColors(false);
+        candidates.put("png-rgb", fullColor);
+        return candidates;
+    }
+
+    private static List<BufferedImage> renderPages(File pdf, int dpi, int maxPages) throws IOException {
+        List<BufferedImage> images = new ArrayList<>();
+        DocumentLoader loader = new DocumentLoader();
+        PDDocument document = loader.load(pdf);
+        try {
+            PDFRenderer renderer = new PDFRenderer(document);
+            int pages = Math.min(maxPages, document.getNumberOfPages());
+            for (int i = 0; i < pages; i++) {
+                images.add(renderer.renderImage(i, dpi / 72f, ImageType.RGB));
+            }
+        } finally {
+            loader.close(document);
+        }
+        return images;
+    }
+
+    private static long encode(ImageWriter imageWriter, BufferedImage image, String format,
+                               EncoderSettings settings) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+        imageWriter.writeImage(image, out, format, settings);
+        return out.size();
+    }
+}
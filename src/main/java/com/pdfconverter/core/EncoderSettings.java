@@ -0,0 +1,139 @@
+package com.pdfconverter.core;
+
+/**
+ * Encoder parameters for writing page images.
+ * Unset values (-1) leave the encoder's own default in place.
+ */
+public class EncoderSettings {
+    private float quality = -1f;
+    private int compressionLevel = -1;
+    private boolean progressive = false;
+    private String pngFilter;
+    private String deflateStrategy;
+    private boolean reduceColors = true;
+    private String tiffCompression;
+
+    public EncoderSettings() {
+    }
+
+    public static EncoderSettings defaults() {
+        return new EncoderSettings();
+    }
+
+    // Getters and setters
+
+    /**
+     * JPEG quality from 0.0 to 1.0; -1 for the writer default (0.75).
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    public void setQuality(float quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * PNG deflate level from 0 (store) to 9 (smallest); -1 for the writer default.
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Write progressive JPEGs (with optimized Huffman tables).
+     */
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * PNG row filter (none, sub, up, average, paeth, adaptive); null to choose per image.
+     */
+    public String getPngFilter() {
+        return pngFilter;
+    }
+
+    public void setPngFilter(String pngFilter) {
+        this.pngFilter = pngFilter;
+    }
+
+    /**
+     * PNG deflate strategy (default, filtered, huffman); null to choose from the filter.
+     */
+    public String getDeflateStrategy() {
+        return deflateStrategy;
+    }
+
+    public void setDeflateStrategy(String deflateStrategy) {
+        this.deflateStrategy = deflateStrategy;
+    }
+
+    /**
+     * Write monochrome or few-color pages as grayscale or palette PNGs.
+     */
+    public boolean isReduceColors() {
+        return reduceColors;
+    }
+
+    public void setReduceColors(boolean reduceColors) {
+        this.reduceColors = reduceColors;
+    }
+
+    /**
+     * TIFF compression (lzw, deflate, g4, packbits, none); null for G4 on bilevel pages, Deflate otherwise.
+     */
+    public String getTiffCompression() {
+        return tiffCompression;
+    }
+
+    public void setTiffCompression(String tiffCompression) {
+        this.tiffCompression = tiffCompression;
+    }
+
+    public boolean isDefault() {
+        return quality < 0 && compressionLevel < 0 && !progressive
+                && pngFilter == null && deflateStrategy == null && reduceColors && tiffCompression == null;
+    }
+
+    /**
+     * Canonical form used in cache keys, e.g. "q0.85-p", "z1-fup" or "default".
+     */
+    @Override
+    public String toString() {
+        if (isDefault()) {
+            return "default";
+        }
+        StringBuilder key = new StringBuilder();
+        if (quality >= 0) {
+            key.append("q").append(quality);
+        }
+        if (compressionLevel >= 0) {
+            key.append(key.length() > 0 ? "-" : "").append("z").append(compressionLevel);
+        }
+        if (progressive) {
+            key.append(key.length() > 0 ? "-" : "").append("p");
+        }
+        if (pngFilter != null) {
+            key.append(key.length() > 0 ? "-" : "").append("f").append(pngFilter);
+        }
+        if (deflateStrategy != null) {
+            key.append(key.length() > 0 ? "-" : "").append("s").append(deflateStrategy);
+        }
+        if (!reduceColors) {
+            key.append(key.length() > 0 ? "-" : "").append("rgb");
+        }
+        if (tiffCompression != null) {
+            key.append(key.length() > 0 ? "-" : "").append("t").append(tiffCompression);
+        }
+        return key.toString();
+    }
+}
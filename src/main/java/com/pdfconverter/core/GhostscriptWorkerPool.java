@@ -0,0 +1,280 @@
+package com.pdfconverter.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Persistent Ghostscript interpreters that repair PDFs fed to them over stdin.
+ * Starting Ghostscript (interpreter and font initialization) costs more than
+ * rewriting a few pages, so the workers are started once, pre-warmed, and each
+ * repair is sent to an idle worker as a short PostScript job that points the
+ * pdfwrite device at a new output file and runs the selected pages through
+ * the PDF interpreter.
+ *
+ * Workers run with -dSAFER and may only read and write their own work
+ * directory; the input is hard-linked (or copied) into it for each job. A
+ * worker that fails, times out or is destroyed is discarded, and a new one is
+ * started when the next job needs it.
+ */
+public class GhostscriptWorkerPool implements Closeable {
+    private static final String IDLE_OUTPUT = "idle.pdf";
+
+    private final List<String> command;
+    private final Path workDir;
+    private final int size;
+    private int workerCount = 0;
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger jobCounter = new AtomicInteger();
+    private final AtomicLong jobsRun = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Starts the workers.
+     *
+     * @param commandPrefix   Prefix such as "nice -n 10" (may be empty)
+     * @param ghostscriptPath Ghostscript executable
+     * @param deviceOptions   pdfwrite quality options shared with one-shot repairs
+     * @param size            Number of persistent workers
+     */
+    public GhostscriptWorkerPool(List<String> commandPrefix, String ghostscriptPath,
+                                 List<String> deviceOptions, int size) throws IOException {
+        this.workDir = Files.createTempDirectory("gs-workers-");
+        String permitted = workDir.toAbsolutePath() + File.separator;
+
+        command = new ArrayList<>(commandPrefix);
+        command.add(ghostscriptPath);
+        command.add("-q");
+        command.add("-sDEVICE=pdfwrite");
+        command.add("-dNOPAUSE");
+        command.add("-dNOPROMPT");
+        command.add("-dSAFER");
+        command.add("--permit-file-read=" + permitted);
+        command.add("--permit-file-write=" + permitted);
+        command.addAll(deviceOptions);
+        command.add("-sOutputFile=" + workDir.resolve(IDLE_OUTPUT));
+        command.add("-");  // Read jobs from stdin
+
+        this.size = size;
+        for (int i = 0; i < size; i++) {
+            idleWorkers.add(new Worker());
+            workerCount++;
+        }
+    }
+
+    /**
+     * Repairs a PDF on an idle worker.
+     *
+     * @param pageRanges Inclusive 1-based [first, last] ranges to write, or empty for all pages
+     * @param started    Receives the worker's process (may be null), e.g. to cancel it
+     * @return true on success, false if the interpreter reported an error for this PDF
+     * @throws IOException if the worker timed out, exited or was destroyed
+     */
+    public boolean repair(File inputPdf, File outputPdf, List<int[]> pageRanges, int timeoutSeconds,
+                          Consumer<Process> started) throws IOException {
+        Worker worker = borrow();
+        int job = jobCounter.incrementAndGet();
+        Path input = workDir.resolve("in-" + job + ".pdf");
+        Path output = workDir.resolve("out-" + job + ".pdf");
+        boolean healthy = false;
+        try {
+            try {
+                Files.createLink(input, inputPdf.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(inputPdf.toPath(), input);
+            }
+            if (started != null) {
+                started.accept(worker.process);
+            }
+
+            boolean success = worker.run(job, jobScript(job, input, output, pageRanges), timeoutSeconds);
+            healthy = success;
+            if (success) {
+                Files.move(output, outputPdf.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                jobsRun.incrementAndGet();
+            }
+            return success;
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+            if (healthy && !closed) {
+                idleWorkers.add(worker);
+            } else {
+                // Interpreter state is unknown after an error; a new worker is started on demand
+                discard(worker);
+            }
+        }
+    }
+
+    private Worker borrow() throws IOException {
+        try {
+            while (true) {
+                synchronized (this) {
+                    if (idleWorkers.isEmpty() && workerCount < size) {
+                        Worker worker = new Worker();
+                        workerCount++;
+                        return worker;
+                    }
+                }
+                Worker worker = idleWorkers.take();
+                if (worker.process.isAlive()) {
+                    return worker;
+                }
+                discard(worker);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Ghostscript worker", e);
+        }
+    }
+
+    /**
+     * PostScript job: redirect pdfwrite to the output, run the pages, then
+     * switch back to the idle file so the output is closed, and print a marker.
+     */
+    private static String jobScript(int job, Path input, Path output, List<int[]> pageRanges) {
+        StringBuilder pages = new StringBuilder();
+        if (pageRanges.isEmpty()) {
+            pages.append("1 pdfpagecount dopdfpages ");
+        } else {
+            for (int[] range : pageRanges) {
+                pages.append(range[0]).append(' ').append(range[1]).append(" dopdfpages ");
+            }
+        }
+
+        return "{ << /OutputFile " + psString(output) + " >> setpagedevice "
+                + psString(input) + " (r) file runpdfbegin process_trailer_attrs "
+                + pages
+                + "runpdfend "
+                + "<< /OutputFile " + psString(output.resolveSibling(IDLE_OUTPUT)) + " >> setpagedevice "
+                + "} stopped { clear (\\n%%JOB-" + job + "-FAILED\\n) } { (\\n%%JOB-" + job + "-DONE\\n) } ifelse "
+                + "print flush\n";
+    }
+
+    private static String psString(Path path) {
+        String escaped = path.toAbsolutePath().toString()
+                .replace("\\", "\\\\").replace("(", "\\(").replace(")", "\\)");
+        return "(" + escaped + ")";
+    }
+
+    private synchronized void discard(Worker worker) {
+        worker.destroy();
+        workerCount--;
+    }
+
+    public int getIdleWorkers() {
+        return idleWorkers.size();
+    }
+
+    public long getJobsRun() {
+        return jobsRun.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Worker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+        }
+        File[] files = workDir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        workDir.toFile().delete();
+    }
+
+    /**
+     * One persistent interpreter. Its output is read on a separate thread so
+     * that a job's timeout is enforced even while the worker keeps writing.
+     */
+    private class Worker {
+        private static final String END_OF_OUTPUT = "\u0000";
+
+        private final Process process;
+        private final Writer stdin;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+
+        Worker() throws IOException {
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectErrorStream(true);
+            process = pb.start();
+            stdin = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII);
+
+            Thread reader = new Thread(() -> {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    // Worker was destroyed
+                } finally {
+                    lines.add(END_OF_OUTPUT);
+                }
+            }, "ghostscript-worker-output");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Sends a job and waits for its marker.
+         */
+        boolean run(int job, String script, int timeoutSeconds) throws IOException {
+            lines.clear();
+            stdin.write(script);
+            stdin.flush();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            StringBuilder output = new StringBuilder();
+            try {
+                while (true) {
+                    long remaining = deadline - System.nanoTime();
+                    String line = remaining > 0 ? lines.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (line == null) {
+                        throw new IOException("Ghostscript repair timed out after " + timeoutSeconds + " seconds");
+                    }
+                    if (line.equals(END_OF_OUTPUT)) {
+                        throw new IOException("Ghostscript worker exited: " + output);
+                    }
+                    if (line.equals("%%JOB-" + job + "-DONE")) {
+                        return true;
+                    }
+                    if (line.equals("%%JOB-" + job + "-FAILED")) {
+                        System.err.println("Ghostscript worker error: " + output.toString().trim());
+                        return false;
+                    }
+                    if (output.length() < 16 * 1024) {
+                        output.append(line).append('\n');
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Ghostscript repair was interrupted", e);
+            }
+        }
+
+        void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.pdfconverter.core;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes a rendered page into an image file format.
+ * Implementations are shared between render threads and must be thread-safe.
+ */
+public interface ImageEncoder {
+
+    /**
+     * Encodes the image into the stream. The stream is not closed.
+     */
+    void encode(BufferedImage image, OutputStream outputStream, EncoderSettings settings) throws IOException;
+}
@@ -0,0 +1,133 @@
+package com.pdfconverter.core;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * ImageEncoder backed by the JDK ImageIO writers.
+ * Each thread keeps its own writer and write param, so the writer plugin
+ * lookup and setup happen once per render thread rather than once per page.
+ * Output goes through an in-memory stream cache instead of ImageIO's
+ * default temp-file cache.
+ */
+public class ImageIOEncoder implements ImageEncoder {
+
+    private final String formatName;
+    private final ThreadLocal<WriterState> writers;
+
+    private static class WriterState {
+        final javax.imageio.ImageWriter writer;
+        final ImageWriteParam param;
+
+        WriterState(javax.imageio.ImageWriter writer) {
+            this.writer = writer;
+            this.param = writer.getDefaultWriteParam();
+        }
+    }
+
+    /**
+     * @param formatName ImageIO format name (e.g. "jpeg", "png", "tiff")
+     */
+    public ImageIOEncoder(String formatName) {
+        this.formatName = formatName;
+        this.writers = ThreadLocal.withInitial(() -> new WriterState(createWriter(formatName)));
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream outputStream, EncoderSettings settings) throws IOException {
+        WriterState state = writers.get();
+        configure(state.param, settings, image);
+
+        try (ImageOutputStream imageOutput = new MemoryCacheImageOutputStream(outputStream)) {
+            state.writer.setOutput(imageOutput);
+            state.writer.write(null, new IIOImage(image, null, null), state.param);
+            state.writer.setOutput(null);
+        } catch (IOException | RuntimeException e) {
+            // Don't reuse a writer left in an unknown state; it is not touched after dispose
+            writers.remove();
+            state.writer.dispose();
+            throw e;
+        }
+    }
+
+    /**
+     * Resets the reused param to the requested settings.
+     */
+    private void configure(ImageWriteParam param, EncoderSettings settings, BufferedImage image) {
+        if (!param.canWriteCompressed()) {
+            return;
+        }
+
+        if (formatName.equals("tiff")) {
+            configureTiff(param, settings, image);
+        } else if (param instanceof JPEGImageWriteParam jpegParam) {
+            jpegParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            jpegParam.setCompressionQuality(settings.getQuality() >= 0 ? settings.getQuality() : 0.75f);
+            jpegParam.setProgressiveMode(settings.isProgressive()
+                    ? ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+            jpegParam.setOptimizeHuffmanTables(settings.isProgressive());
+        } else if (settings.getCompressionLevel() >= 0) {
+            // The JDK PNG writer maps quality q to deflate level 9 - round(9 * q)
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality((9 - Math.min(settings.getCompressionLevel(), 9)) / 9f);
+        } else {
+            param.setCompressionMode(ImageWriteParam.MODE_DEFAULT);
+        }
+    }
+
+    /**
+     * Sets the TIFF compression: the requested one (lzw, deflate, g4, packbits,
+     * none), or by default Group 4 fax for 1-bit images and Deflate otherwise.
+     */
+    static void configureTiff(ImageWriteParam param, EncoderSettings settings, BufferedImage image) {
+        String compression = settings.getTiffCompression();
+        if ("none".equals(compression)) {
+            param.setCompressionMode(ImageWriteParam.MODE_DISABLED);
+            return;
+        }
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionType(tiffCompressionType(compression, image.getColorModel().getPixelSize() == 1));
+    }
+
+    /**
+     * Maps a compression name to the JDK TIFF writer's compression type.
+     */
+    public static String tiffCompressionType(String compression, boolean bilevel) {
+        if (compression == null || compression.isBlank() || compression.equalsIgnoreCase("auto")) {
+            return bilevel ? "CCITT T.6" : "Deflate";
+        }
+        return switch (compression.toLowerCase()) {
+            case "lzw" -> "LZW";
+            case "deflate" -> "Deflate";
+            case "packbits" -> "PackBits";
+            case "g4" -> {
+                if (!bilevel) {
+                    throw new IllegalArgumentException("Group 4 compression requires bilevel pages");
+                }
+                yield "CCITT T.6";
+            }
+            default -> throw new IllegalArgumentException("Unknown TIFF compression: " + compression);
+        };
+    }
+
+    private static javax.imageio.ImageWriter createWriter(String formatName) {
+        Iterator<javax.imageio.ImageWriter> candidates = ImageIO.getImageWritersByFormatName(formatName);
+        if (!candidates.hasNext()) {
+            throw new IllegalStateException("No ImageIO writer for format: " + formatName);
+        }
+        return candidates.next();
+    }
+
+    @Override
+    public String toString() {
+        return "ImageIO/" + formatName;
+    }
+}
@@ -1,36 +1,91 @@
 package com.pdfconverter.core;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Handles writing BufferedImage objects to disk as JPG or PNG files.
+ * Handles writing BufferedImage objects to disk as JPG, PNG or TIFF files.
+ * Encoding is delegated to an ImageEncoder per format: JPG and TIFF go through
+ * shared ImageIO encoders that reuse one writer per thread, PNG through the
+ * parallel PngEncoder.
  */
 public class ImageWriter {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<String, ImageEncoder> DEFAULT_ENCODERS = Map.of(
+            "jpg", new ImageIOEncoder("jpeg"),
+            "png", new PngEncoder(),
+            "tiff", new ImageIOEncoder("tiff")
+    );
+
+    private final Map<String, ImageEncoder> encoders = new ConcurrentHashMap<>(DEFAULT_ENCODERS);
+
+    /**
+     * Replaces the encoder used for a format (e.g. "png").
+     */
+    public void registerEncoder(String format, ImageEncoder encoder) {
+        encoders.put(format.toLowerCase(), encoder);
+    }
+
+    public ImageEncoder getEncoder(String format) throws IOException {
+        ImageEncoder encoder = encoders.get(format.toLowerCase());
+        if (encoder == null) {
+            throw new IOException("Unsupported image format: " + format);
+        }
+        return encoder;
+    }
+
     public long writeImage(BufferedImage image, File outputFile, String format) throws IOException {
+        return writeImage(image, outputFile, format, EncoderSettings.defaults());
+    }
+
+    public long writeImage(BufferedImage image, File outputFile, String format,
+                           EncoderSettings settings) throws IOException {
         File parentDir = outputFile.getParentFile();
         if (parentDir != null && !parentDir.exists() && !parentDir.mkdirs()) {
             throw new IOException("Failed to create output directory: " + parentDir);
         }
 
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile), BUFFER_SIZE)) {
+            writeImage(image, out, format, settings);
+        }
+
+        return outputFile.length();
+    }
+
+    /**
+     * Encodes an image into a stream, e.g. for serving it directly over HTTP.
+     */
+    public void writeImage(BufferedImage image, OutputStream outputStream, String format) throws IOException {
+        writeImage(image, outputStream, format, EncoderSettings.defaults());
+    }
+
+    public void writeImage(BufferedImage image, OutputStream outputStream, String format,
+                           EncoderSettings settings) throws IOException {
+        ImageEncoder encoder = getEncoder(format);
+
         BufferedImage imageToWrite = image;
         if (format.equalsIgnoreCase("jpg")) {
             imageToWrite = convertToRGB(image);
         }
 
-        boolean success = ImageIO.write(imageToWrite, format, outputFile);
-        if (!success) {
-            throw new IOException("Failed to write image in format: " + format);
-        }
-
-        return outputFile.length();
+        encoder.encode(imageToWrite, outputStream, settings);
     }
 
+    /**
+     * JPEG has no alpha channel. Pages are rendered as RGB already, so this
+     * only copies images that come from elsewhere with an alpha channel.
+     */
     private BufferedImage convertToRGB(BufferedImage source) {
-        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+        if (!source.getColorModel().hasAlpha()) {
             return source;
         }
 
@@ -44,6 +99,16 @@ public class ImageWriter {
         return rgbImage;
     }
 
+    /**
+     * Opens a multi-page TIFF that pages are appended to as they finish.
+     *
+     * @param plannedPages Page numbers in the order they should appear in the file
+     */
+    public MultiPageTiffWriter openMultiPageTiff(File outputFile, List<Integer> plannedPages,
+                                                 EncoderSettings settings) throws IOException {
+        return new MultiPageTiffWriter(outputFile, plannedPages, settings);
+    }
+
     public String generateFilename(int pageNumber, String format) {
         return String.format("page-%03d.%s", pageNumber, format);
     }
@@ -0,0 +1,52 @@
+package com.pdfconverter.core;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repairs a PDF inside the JVM with PDFBox, without starting a process.
+ * PDFBox's lenient parser rebuilds a broken cross-reference table by scanning
+ * the file for objects and recovers wrong stream lengths; saving the document
+ * writes every object again with a fresh xref table and trailer.
+ *
+ * This fixes structural damage only. Content streams are copied as they are,
+ * so pages whose content the renderer cannot interpret still fail and go on
+ * to QPDF or Ghostscript instead of being recovered with content missing.
+ */
+class InProcessRepair {
+    private static final long SCRATCH_MEMORY_BYTES = 64L * 1024 * 1024;
+
+    private InProcessRepair() {
+    }
+
+    /**
+     * Rewrites the PDF.
+     *
+     * @param pageNumbers Sorted 1-based pages to keep, or null for the whole document
+     */
+    static void rewrite(File inputPdf, File outputPdf, List<Integer> pageNumbers) throws IOException {
+        try (PDDocument document = PDDocument.load(inputPdf, MemoryUsageSetting.setupMixed(SCRATCH_MEMORY_BYTES))) {
+            if (pageNumbers != null) {
+                Set<Integer> keep = new HashSet<>(pageNumbers);
+                for (int pageNumber = document.getNumberOfPages(); pageNumber >= 1; pageNumber--) {
+                    if (!keep.contains(pageNumber)) {
+                        document.removePage(pageNumber - 1);
+                    }
+                }
+            }
+
+            // Encrypted input is opened with the empty user password; the copy is written unencrypted
+            document.setAllSecurityToBeRemoved(true);
+            document.save(outputPdf);
+        } catch (RuntimeException e) {
+            // PDFBox reports some kinds of damage as unchecked exceptions
+            throw new IOException("PDFBox could not rewrite " + inputPdf.getName() + ": " + e, e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.pdfconverter.core;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Global byte semaphore limiting the raster memory held by in-flight page renders.
+ * Requests are admitted in FIFO order so a large page is not starved by a stream
+ * of small ones. A request larger than the whole budget is clamped to it and
+ * therefore runs alone.
+ */
+public class MemoryBudget {
+    private final long capacityBytes;
+    private final Deque<Object> waiters = new ArrayDeque<>();
+    private long usedBytes = 0;
+    private long peakBytes = 0;
+    private long acquisitions = 0;
+    private long waitCount = 0;
+    private long totalWaitMs = 0;
+    private long maxWaitMs = 0;
+
+    public MemoryBudget(long capacityBytes) {
+        this.capacityBytes = Math.max(1, capacityBytes);
+    }
+
+    /**
+     * Blocks until the requested bytes fit in the budget.
+     *
+     * @param bytes Estimated bytes needed
+     * @return Bytes actually reserved; pass this value to {@link #release(long)}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire(long bytes) throws InterruptedException {
+        long reserved = Math.max(0, Math.min(bytes, capacityBytes));
+        Object ticket = new Object();
+        long startTime = System.currentTimeMillis();
+        boolean waited = false;
+
+        synchronized (this) {
+            waiters.addLast(ticket);
+            try {
+                while (waiters.peekFirst() != ticket || usedBytes + reserved > capacityBytes) {
+                    waited = true;
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                waiters.remove(ticket);
+                notifyAll();
+                throw e;
+            }
+
+            waiters.pollFirst();
+            usedBytes += reserved;
+            peakBytes = Math.max(peakBytes, usedBytes);
+            acquisitions++;
+            if (waited) {
+                long waitMs = System.currentTimeMillis() - startTime;
+                waitCount++;
+                totalWaitMs += waitMs;
+                maxWaitMs = Math.max(maxWaitMs, waitMs);
+            }
+            // Let the next waiter in line check whether it fits too
+            notifyAll();
+        }
+        return reserved;
+    }
+
+    /**
+     * Returns previously reserved bytes to the budget.
+     */
+    public synchronized void release(long reservedBytes) {
+        usedBytes = Math.max(0, usedBytes - reservedBytes);
+        notifyAll();
+    }
+
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Snapshot of budget usage and wait statistics.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("capacityBytes", capacityBytes);
+        metrics.put("usedBytes", usedBytes);
+        metrics.put("peakBytes", peakBytes);
+        metrics.put("waitingRequests", waiters.size());
+        metrics.put("acquisitions", acquisitions);
+        metrics.put("waitCount", waitCount);
+        metrics.put("totalWaitMs", totalWaitMs);
+        metrics.put("maxWaitMs", maxWaitMs);
+        metrics.put("averageWaitMs", waitCount > 0 ? (double) totalWaitMs / waitCount : 0.0);
+        return metrics;
+    }
+}
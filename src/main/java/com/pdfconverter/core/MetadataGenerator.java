@@ -18,6 +18,8 @@ public class MetadataGenerator {
     @SuppressWarnings("unused") // Fields used by Gson for JSON serialization
     public static class Metadata {
         private final int totalPages;
+        private final String requestedPages;
+        private final int requestedPageCount;
         private final int successfulPages;
         private final int failedPages;
         private final double timeTakenSeconds;
@@ -25,19 +27,24 @@ public class MetadataGenerator {
         private final String outputFormat;
         private final List<FileInfo> files;
         private final List<String> errors;
+        private final List<PageResult> pages;
         private final String timestamp;
         private final String inputFile;
 
-        public Metadata(int totalPages, int successfulPages, double timeTakenSeconds, int dpi,
-                       String outputFormat, List<FileInfo> files, String inputFile, List<String> errors) {
+        public Metadata(int totalPages, String requestedPages, int requestedPageCount, int successfulPages,
+                       double timeTakenSeconds, int dpi, String outputFormat, List<FileInfo> files,
+                       String inputFile, List<String> errors, List<PageResult> pages) {
             this.totalPages = totalPages;
+            this.requestedPages = requestedPages;
+            this.requestedPageCount = requestedPageCount;
             this.successfulPages = successfulPages;
-            this.failedPages = totalPages - successfulPages;
+            this.failedPages = requestedPageCount - successfulPages;
             this.timeTakenSeconds = timeTakenSeconds;
             this.dpi = dpi;
             this.outputFormat = outputFormat;
             this.files = files;
             this.errors = errors.isEmpty() ? null : errors;
+            this.pages = pages;
             this.timestamp = Instant.now().toString();
             this.inputFile = inputFile;
         }
@@ -47,11 +54,25 @@ public class MetadataGenerator {
         private final String page;
         private final long sizeBytes;
         private final String path;
+        private final boolean cacheHit;
+        private final long encodeTimeMs;
+        private Integer pageNumber;
+        private Integer frame;
 
         public FileInfo(String page, long sizeBytes, String path) {
+            this(page, sizeBytes, path, false, 0);
+        }
+
+        public FileInfo(String page, long sizeBytes, String path, boolean cacheHit) {
+            this(page, sizeBytes, path, cacheHit, 0);
+        }
+
+        public FileInfo(String page, long sizeBytes, String path, boolean cacheHit, long encodeTimeMs) {
             this.page = page;
             this.sizeBytes = sizeBytes;
             this.path = path;
+            this.cacheHit = cacheHit;
+            this.encodeTimeMs = encodeTimeMs;
         }
 
         public String getPage() {
@@ -65,22 +86,69 @@ public class MetadataGenerator {
         public String getPath() {
             return path;
         }
+
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+
+        /**
+         * Time spent encoding and writing the image; 0 for cache hits.
+         */
+        public long getEncodeTimeMs() {
+            return encodeTimeMs;
+        }
+
+        /**
+         * PDF page number; only set for multi-page output, where "page" is the shared file.
+         */
+        public Integer getPageNumber() {
+            return pageNumber;
+        }
+
+        /**
+         * Frame index of the page inside a multi-page file, or null.
+         */
+        public Integer getFrame() {
+            return frame;
+        }
+
+        public void setFrame(Integer frame) {
+            this.frame = frame;
+        }
     }
 
-    public void generateMetadata(File outputDir, int totalPages, int successfulPages, long timeTakenMs,
-                                 int dpi, String format, String inputFileName,
-                                 List<FileInfo> files, List<String> errors) throws IOException {
+    /**
+     * Writes metadata.json.
+     * Failed pages are counted against the requested pages, not the whole document.
+     */
+    public void generateMetadata(File outputDir, int totalPages, String requestedPages, int requestedPageCount,
+                                 int successfulPages, long timeTakenMs, int dpi, String format,
+                                 String inputFileName, List<FileInfo> files, List<String> errors) throws IOException {
+        generateMetadata(outputDir, totalPages, requestedPages, requestedPageCount, successfulPages, timeTakenMs,
+                dpi, format, inputFileName, files, errors, null);
+    }
+
+    /**
+     * Writes metadata.json including the result and attempt history of every page.
+     */
+    public void generateMetadata(File outputDir, int totalPages, String requestedPages, int requestedPageCount,
+                                 int successfulPages, long timeTakenMs, int dpi, String format,
+                                 String inputFileName, List<FileInfo> files, List<String> errors,
+                                 List<PageResult> pages) throws IOException {
         double timeTakenSeconds = timeTakenMs / 1000.0;
 
         Metadata metadata = new Metadata(
                 totalPages,
+                requestedPages,
+                requestedPageCount,
                 successfulPages,
                 timeTakenSeconds,
                 dpi,
                 format,
                 files,
                 inputFileName,
-                errors
+                errors,
+                pages
         );
 
         Gson gson = new GsonBuilder().setPrettyPrinting().create();
@@ -96,6 +164,25 @@ public class MetadataGenerator {
         return new FileInfo(filename, sizeBytes, absolutePath);
     }
 
+    public FileInfo createFileInfo(String filename, long sizeBytes, String absolutePath, boolean cacheHit) {
+        return new FileInfo(filename, sizeBytes, absolutePath, cacheHit);
+    }
+
+    public FileInfo createFileInfo(String filename, long sizeBytes, String absolutePath, long encodeTimeMs) {
+        return new FileInfo(filename, sizeBytes, absolutePath, false, encodeTimeMs);
+    }
+
+    /**
+     * File info for one page stored as a frame of a multi-page file.
+     */
+    public FileInfo createFrameInfo(String filename, int pageNumber, int frame, long sizeBytes,
+                                    String absolutePath, long encodeTimeMs) {
+        FileInfo fileInfo = new FileInfo(filename, sizeBytes, absolutePath, false, encodeTimeMs);
+        fileInfo.pageNumber = pageNumber;
+        fileInfo.frame = frame;
+        return fileInfo;
+    }
+
     public List<FileInfo> createFileInfoList() {
         return new ArrayList<>();
     }
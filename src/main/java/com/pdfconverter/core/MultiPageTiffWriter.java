@@ -0,0 +1,215 @@
+package com.pdfconverter.core;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams rendered pages into a single multi-page TIFF file.
+ * Each page is appended as its own IFD as soon as it is rendered, so only the
+ * pages currently being rendered are ever in memory, and no render thread ever
+ * waits for another page.
+ *
+ * Frames are written in completion order. On close, the chain of IFDs is
+ * relinked (the header's first-IFD offset and each IFD's next-IFD offset are
+ * rewritten in place) so that the file lists the pages in planned order,
+ * including pages recovered later by repair. Only those pointers are touched;
+ * the image data stays where it was written.
+ */
+public class MultiPageTiffWriter implements Closeable {
+
+    private final File file;
+    private final ImageOutputStream output;
+    private final javax.imageio.ImageWriter writer;
+    private final ImageWriteParam param;
+    private final EncoderSettings settings;
+    private final List<Integer> plannedPages;
+    // Page number -> frame index in write order; the last write of a page wins
+    private final Map<Integer, Integer> writtenFrames = new LinkedHashMap<>();
+    // Page number -> frame index in the relinked file, set on close
+    private final Map<Integer, Integer> finalFrames = new HashMap<>();
+    private int frameCount = 0;
+    private boolean closed = false;
+
+    /**
+     * @param file         TIFF file to create
+     * @param plannedPages Page numbers in the order they should appear
+     * @param settings     Encoder settings (tiffCompression)
+     */
+    public MultiPageTiffWriter(File file, List<Integer> plannedPages, EncoderSettings settings) throws IOException {
+        this.file = file;
+        this.plannedPages = plannedPages;
+        this.settings = settings;
+
+        Iterator<javax.imageio.ImageWriter> candidates = ImageIO.getImageWritersByFormatName("tiff");
+        if (!candidates.hasNext()) {
+            throw new IOException("No TIFF writer available");
+        }
+        this.writer = candidates.next();
+        this.param = writer.getDefaultWriteParam();
+        // A resumed job writes into the same output directory; never append to an old file
+        Files.deleteIfExists(file.toPath());
+        this.output = new FileImageOutputStream(file);
+        writer.setOutput(output);
+        writer.prepareWriteSequence(null);
+    }
+
+    /**
+     * Appends a page.
+     *
+     * @return Frame index of the page in write order, the bytes it added and the encode time
+     */
+    public synchronized Frame writePage(int pageNumber, BufferedImage image) throws IOException {
+        if (closed) {
+            throw new IOException("TIFF output already closed");
+        }
+
+        long encodeStart = System.nanoTime();
+        ImageIOEncoder.configureTiff(param, settings, image);
+        long start = output.getStreamPosition();
+        writer.writeToSequence(new IIOImage(image, null, null), param);
+        int index = frameCount++;
+        writtenFrames.put(pageNumber, index);
+        return new Frame(index, output.getStreamPosition() - start, (System.nanoTime() - encodeStart) / 1_000_000);
+    }
+
+    public synchronized int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Frame index of a page in the finished file (valid after close), or null if it was not written.
+     */
+    public synchronized Integer getFinalFrame(int pageNumber) {
+        return finalFrames.get(pageNumber);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writer.endWriteSequence();
+        } catch (IllegalStateException e) {
+            // Nothing was written
+        } finally {
+            writer.dispose();
+            output.close();
+        }
+        if (frameCount > 0) {
+            relinkInPlannedOrder();
+        }
+    }
+
+    /**
+     * Rewrites the IFD chain so that the written pages follow the planned order.
+     */
+    private void relinkInPlannedOrder() throws IOException {
+        Map<Integer, Integer> plannedPosition = new HashMap<>();
+        for (int i = 0; i < plannedPages.size(); i++) {
+            plannedPosition.putIfAbsent(plannedPages.get(i), i);
+        }
+        List<Integer> order = new ArrayList<>(writtenFrames.keySet());
+        // Pages outside the plan (not expected) keep their write order at the end
+        order.sort(Comparator.comparingInt(page -> plannedPosition.getOrDefault(page, Integer.MAX_VALUE)));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            ByteOrder byteOrder = raf.readUnsignedShort() == 0x4949 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+
+            // Walk the chain as written: one IFD per frame, in write order
+            long[] ifdOffsets = new long[frameCount];
+            long offset = readUnsignedInt(raf, 4, byteOrder);
+            for (int i = 0; i < frameCount; i++) {
+                if (offset == 0) {
+                    throw new IOException("TIFF has " + i + " IFD(s), expected " + frameCount);
+                }
+                ifdOffsets[i] = offset;
+                offset = readUnsignedInt(raf, nextPointerOffset(raf, offset, byteOrder), byteOrder);
+            }
+
+            long pointer = 4;
+            for (int page : order) {
+                long ifdOffset = ifdOffsets[writtenFrames.get(page)];
+                writeUnsignedInt(raf, pointer, ifdOffset, byteOrder);
+                pointer = nextPointerOffset(raf, ifdOffset, byteOrder);
+                finalFrames.put(page, finalFrames.size());
+            }
+            writeUnsignedInt(raf, pointer, 0, byteOrder);
+        }
+    }
+
+    private static long nextPointerOffset(RandomAccessFile raf, long ifdOffset, ByteOrder byteOrder)
+            throws IOException {
+        raf.seek(ifdOffset);
+        int entries = raf.readUnsignedShort();
+        if (byteOrder == ByteOrder.LITTLE_ENDIAN) {
+            entries = Integer.reverseBytes(entries) >>> 16;
+        }
+        return ifdOffset + 2 + entries * 12L;
+    }
+
+    private static long readUnsignedInt(RandomAccessFile raf, long position, ByteOrder byteOrder) throws IOException {
+        raf.seek(position);
+        int value = raf.readInt();
+        return Integer.toUnsignedLong(byteOrder == ByteOrder.LITTLE_ENDIAN ? Integer.reverseBytes(value) : value);
+    }
+
+    private static void writeUnsignedInt(RandomAccessFile raf, long position, long value, ByteOrder byteOrder)
+            throws IOException {
+        raf.seek(position);
+        int bits = (int) value;
+        raf.writeInt(byteOrder == ByteOrder.LITTLE_ENDIAN ? Integer.reverseBytes(bits) : bits);
+    }
+
+    /**
+     * Position of a page inside the TIFF.
+     */
+    public static class Frame {
+        private final int index;
+        private final long sizeBytes;
+        private final long encodeTimeMs;
+
+        public Frame(int index, long sizeBytes, long encodeTimeMs) {
+            this.index = index;
+            this.sizeBytes = sizeBytes;
+            this.encodeTimeMs = encodeTimeMs;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public long getSizeBytes() {
+            return sizeBytes;
+        }
+
+        /**
+         * Time spent encoding and writing the frame.
+         */
+        public long getEncodeTimeMs() {
+            return encodeTimeMs;
+        }
+    }
+}
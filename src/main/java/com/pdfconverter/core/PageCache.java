@@ -0,0 +1,182 @@
+package com.pdfconverter.core;
+
+import com.pdfconverter.util.LinkUtility;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache of individually rendered pages.
+ * Keyed by document hash, page index and every option that changes the raster,
+ * so overlapping page ranges or re-conversions of a document only render the
+ * pages that are missing. An in-memory index tracks entry sizes in LRU order
+ * and evicts the oldest pages once the size budget is exceeded.
+ */
+@Service
+public class PageCache {
+
+    @Value("${app.page-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.page-cache.dir:page-cache}")
+    private String cacheDirConfig;
+
+    @Value("${app.page-cache.max-size-mb:2048}")
+    private long maxSizeMb;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+
+    /**
+     * Rebuild the index from pages left on disk by a previous run.
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        File[] files = getCacheDir().listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File file : files) {
+                entrySizes.put(file.getName(), file.length());
+                totalBytes += file.length();
+            }
+            evictIfNeeded();
+        }
+
+        System.out.println("Page cache: " + entrySizes.size() + " pages, "
+                + (totalBytes / (1024 * 1024)) + " MB");
+    }
+
+    /**
+     * Gets the absolute path of the cache directory, creating it if needed.
+     */
+    private File getCacheDir() {
+        File dir = new File(System.getProperty("user.dir"), cacheDirConfig);
+        try {
+            Files.createDirectories(dir.toPath());
+        } catch (IOException e) {
+            // Reported when a page is stored
+        }
+        return dir;
+    }
+
+    public boolean isEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Builds the cache key of a rendered page.
+     *
+     * @param documentHash Content hash of the source PDF
+     * @param pageIndex    0-based page index
+     * @param renderKey    All render options that affect the output (e.g. "150dpi")
+     * @param format       Image format, used as file extension
+     */
+    public static String buildKey(String documentHash, int pageIndex, String renderKey, String format) {
+        return documentHash + "-p" + pageIndex + "-" + renderKey + "." + format;
+    }
+
+    /**
+     * Materializes a cached page at the target location.
+     *
+     * @return true on a hit
+     */
+    public boolean lookup(String key, File target) {
+        synchronized (this) {
+            if (!entrySizes.containsKey(key)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            try {
+                LinkUtility.linkOrCopy(new File(getCacheDir(), key), target);
+            } catch (IOException e) {
+                // Entry vanished underneath us; drop it and render instead
+                Long size = entrySizes.remove(key);
+                totalBytes -= size != null ? size : 0;
+                misses.incrementAndGet();
+                return false;
+            }
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Adds a freshly rendered page to the cache.
+     */
+    public void store(String key, File renderedFile) {
+        long size = renderedFile.length();
+        if (size > maxSizeMb * 1024 * 1024) {
+            return;
+        }
+
+        synchronized (this) {
+            if (entrySizes.containsKey(key)) {
+                return;
+            }
+            try {
+                LinkUtility.linkOrCopy(renderedFile, new File(getCacheDir(), key));
+            } catch (IOException e) {
+                System.err.println("Failed to cache page " + key + ": " + e.getMessage());
+                return;
+            }
+            entrySizes.put(key, size);
+            totalBytes += size;
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Evicts least recently used pages until the cache fits its size bound.
+     * Caller must hold the monitor.
+     */
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(getCacheDir(), eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Snapshot of cache size and hit/miss statistics.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", cacheEnabled);
+        metrics.put("pages", entrySizes.size());
+        metrics.put("sizeBytes", totalBytes);
+        metrics.put("maxSizeBytes", maxSizeMb * 1024 * 1024);
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,202 @@
+package com.pdfconverter.core;
+
+import com.pdfconverter.util.HashUtility;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable record of the page images a conversion has written, kept in the
+ * output directory next to metadata.json so that an interrupted conversion can
+ * resume with the missing pages only.
+ *
+ * The file holds a header (magic, document page count, SHA-256 of the render
+ * settings), a bitmap with one bit per document page, and a 17-byte slot per
+ * page with the image's size and CRC-32C, the effective DPI it was rendered at
+ * and the pass that produced it, so a resumed page keeps reporting a 72 DPI
+ * fallback or a repair as such. Marking a page writes its slot and
+ * then its bitmap byte in place, so a page costs two small writes, and a crash
+ * cannot leave a bit set for a slot that was never written. A checkpoint made
+ * for another document or other render settings is discarded on open.
+ */
+public class PageCheckpoint implements Closeable {
+    public static final String FILENAME = "checkpoint.bin";
+
+    private static final int MAGIC = 0x50434B32;  // "PCK2"
+    private static final int KEY_BYTES = 32;
+    private static final int HEADER_BYTES = 4 + 4 + KEY_BYTES;
+    private static final int SLOT_BYTES = 8 + 4 + 4 + 1;
+
+    // Slot codes of the passes; only ever append, the index is stored
+    private static final List<String> STRATEGIES = List.of(
+            PageResult.STRATEGY_DIRECT,
+            PageResult.STRATEGY_IN_PROCESS,
+            PageResult.STRATEGY_QPDF,
+            PageResult.STRATEGY_GHOSTSCRIPT,
+            PageResult.STRATEGY_DPI_FALLBACK);
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final int pageCount;
+    private final byte[] bitmap;
+    private final int restoredPages;
+
+    private PageCheckpoint(File file, RandomAccessFile raf, int pageCount, byte[] bitmap) {
+        this.file = file;
+        this.raf = raf;
+        this.pageCount = pageCount;
+        this.bitmap = bitmap;
+        int count = 0;
+        for (byte b : bitmap) {
+            count += Integer.bitCount(b & 0xFF);
+        }
+        this.restoredPages = count;
+    }
+
+    /**
+     * Opens the checkpoint in the output directory, or starts a new one if
+     * there is none or it was written for other settings.
+     *
+     * @param pageCount   Number of pages in the document
+     * @param settingsKey Identifies the document and every setting that affects the images
+     */
+    public static PageCheckpoint open(File outputDir, int pageCount, String settingsKey) throws IOException {
+        File file = new File(outputDir, FILENAME);
+        byte[] key = HexFormat.of().parseHex(HashUtility.sha256Hex(settingsKey));
+        byte[] bitmap = new byte[(pageCount + 7) / 8];
+        long length = HEADER_BYTES + bitmap.length + (long) pageCount * SLOT_BYTES;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() == length && raf.readInt() == MAGIC && raf.readInt() == pageCount) {
+                byte[] storedKey = new byte[KEY_BYTES];
+                raf.readFully(storedKey);
+                if (Arrays.equals(storedKey, key)) {
+                    raf.readFully(bitmap);
+                    return new PageCheckpoint(file, raf, pageCount, bitmap);
+                }
+            }
+
+            // New checkpoint: header, then an empty bitmap and slots
+            raf.setLength(0);
+            raf.writeInt(MAGIC);
+            raf.writeInt(pageCount);
+            raf.write(key);
+            raf.setLength(length);
+            return new PageCheckpoint(file, raf, pageCount, bitmap);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Number of pages marked written when the checkpoint was opened.
+     */
+    public int getRestoredPages() {
+        return restoredPages;
+    }
+
+    /**
+     * Records that a page's image has been fully written.
+     *
+     * @param pageIndex 0-based page index in the document
+     * @param attempt   Pass and effective DPI the image was rendered with
+     */
+    public void markWritten(int pageIndex, File image, PageResult.Attempt attempt) throws IOException {
+        checkIndex(pageIndex);
+        int strategy = STRATEGIES.indexOf(attempt.getStrategy());
+        if (strategy < 0) {
+            throw new IllegalArgumentException("Strategy " + attempt.getStrategy() + " cannot be checkpointed");
+        }
+        long size = image.length();
+        int crc = checksum(image);
+        synchronized (this) {
+            raf.seek(slotOffset(pageIndex));
+            raf.writeLong(size);
+            raf.writeInt(crc);
+            raf.writeFloat(attempt.getDpi());
+            raf.writeByte(strategy);
+
+            bitmap[pageIndex / 8] |= (byte) (1 << (pageIndex % 8));
+            raf.seek(HEADER_BYTES + pageIndex / 8);
+            raf.write(bitmap[pageIndex / 8]);
+        }
+    }
+
+    /**
+     * Checks that a page is marked written and that its image still has the recorded size and checksum.
+     *
+     * @param pageIndex 0-based page index in the document
+     * @return The recorded pass and effective DPI, with the checkpoint as source, or null if the page must be rendered
+     */
+    public PageResult.Attempt verify(int pageIndex, File image) throws IOException {
+        checkIndex(pageIndex);
+        long size;
+        int crc;
+        float dpi;
+        int strategy;
+        synchronized (this) {
+            if ((bitmap[pageIndex / 8] & (1 << (pageIndex % 8))) == 0) {
+                return null;
+            }
+            raf.seek(slotOffset(pageIndex));
+            size = raf.readLong();
+            crc = raf.readInt();
+            dpi = raf.readFloat();
+            strategy = raf.readUnsignedByte();
+        }
+        if (strategy >= STRATEGIES.size()
+                || !image.isFile() || image.length() != size || checksum(image) != crc) {
+            return null;
+        }
+        PageResult.Attempt attempt = new PageResult.Attempt(STRATEGIES.get(strategy), PageResult.SOURCE_CHECKPOINT);
+        attempt.setDpi(dpi);
+        return attempt;
+    }
+
+    private long slotOffset(int pageIndex) {
+        return HEADER_BYTES + bitmap.length + (long) pageIndex * SLOT_BYTES;
+    }
+
+    private void checkIndex(int pageIndex) {
+        if (pageIndex < 0 || pageIndex >= pageCount) {
+            throw new IllegalArgumentException("Page index " + pageIndex + " outside 0-" + (pageCount - 1));
+        }
+    }
+
+    private static int checksum(File image) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(image)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        raf.close();
+    }
+
+    /**
+     * Closes and deletes the checkpoint once the conversion has finished.
+     */
+    public void delete() throws IOException {
+        close();
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Failed to delete " + file);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.pdfconverter.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of one requested page across all conversion passes.
+ * The repair cascade selects the pages to retry from these results, and
+ * metadata.json lists them with their attempt history.
+ */
+@SuppressWarnings("unused") // Fields used by Gson for JSON serialization
+public class PageResult {
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_SUCCEEDED = "succeeded";
+    public static final String STATUS_FAILED = "failed";
+
+    /**
+     * Conversion passes, in cascade order.
+     */
+    public static final String STRATEGY_DIRECT = "direct";
+    public static final String STRATEGY_IN_PROCESS = "in-process";
+    public static final String STRATEGY_QPDF = "qpdf";
+    public static final String STRATEGY_GHOSTSCRIPT = "ghostscript";
+    public static final String STRATEGY_DPI_FALLBACK = "dpi-fallback";
+
+    /**
+     * Documents a page can be rendered from. A page from the checkpoint kept
+     * the image an interrupted run of the same conversion wrote, and reports
+     * the pass and DPI that run rendered it with.
+     */
+    public static final String SOURCE_ORIGINAL = "original";
+    public static final String SOURCE_CHECKPOINT = "checkpoint";
+
+    private final int pageIndex;
+    private final int pageNumber;
+    private String status = STATUS_PENDING;
+    private String strategy;
+    private String source;
+    private float dpi;
+    private long renderTimeMs;
+    private long encodeTimeMs;
+    private long sizeBytes;
+    private boolean cacheHit;
+    private String exceptionClass;
+    private String errorMessage;
+    private final List<Attempt> attempts = new ArrayList<>();
+    private transient MetadataGenerator.FileInfo fileInfo;
+
+    public PageResult(int pageIndex) {
+        this.pageIndex = pageIndex;
+        this.pageNumber = pageIndex + 1;
+    }
+
+    /**
+     * One render of the page in one pass.
+     */
+    public static class Attempt {
+        private final String strategy;
+        private final String source;
+        private float dpi;
+        private long renderTimeMs;
+        private long encodeTimeMs;
+        private long totalTimeMs;
+        private boolean success;
+        private String exceptionClass;
+        private String errorMessage;
+
+        public Attempt(String strategy, String source) {
+            this.strategy = strategy;
+            this.source = source;
+        }
+
+        /**
+         * Effective resolution the page is rendered at (72 x scale).
+         */
+        public void setDpi(float dpi) {
+            this.dpi = dpi;
+        }
+
+        public void setRenderTimeMs(long renderTimeMs) {
+            this.renderTimeMs = renderTimeMs;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public float getDpi() {
+            return dpi;
+        }
+
+        public long getRenderTimeMs() {
+            return renderTimeMs;
+        }
+
+        public long getEncodeTimeMs() {
+            return encodeTimeMs;
+        }
+
+        public long getTotalTimeMs() {
+            return totalTimeMs;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getExceptionClass() {
+            return exceptionClass;
+        }
+
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * Records a successful attempt; the page's image is described by the file info.
+     */
+    public synchronized void recordSuccess(Attempt attempt, long totalTimeMs, MetadataGenerator.FileInfo fileInfo) {
+        attempt.success = true;
+        attempt.totalTimeMs = totalTimeMs;
+        attempt.encodeTimeMs = fileInfo.getEncodeTimeMs();
+        attempts.add(attempt);
+
+        this.status = STATUS_SUCCEEDED;
+        this.strategy = attempt.strategy;
+        this.source = attempt.source;
+        this.dpi = attempt.dpi;
+        this.renderTimeMs = attempt.renderTimeMs;
+        this.encodeTimeMs = attempt.encodeTimeMs;
+        this.sizeBytes = fileInfo.getSizeBytes();
+        this.cacheHit = fileInfo.isCacheHit();
+        this.exceptionClass = null;
+        this.errorMessage = null;
+        this.fileInfo = fileInfo;
+    }
+
+    /**
+     * Records a failed attempt; the page stays failed until a later pass succeeds.
+     */
+    public synchronized void recordFailure(Attempt attempt, long totalTimeMs, Throwable error) {
+        attempt.success = false;
+        attempt.totalTimeMs = totalTimeMs;
+        attempt.exceptionClass = error.getClass().getName();
+        attempt.errorMessage = error.getMessage();
+        attempts.add(attempt);
+
+        this.status = STATUS_FAILED;
+        this.exceptionClass = attempt.exceptionClass;
+        this.errorMessage = attempt.errorMessage;
+    }
+
+    public int getPageIndex() {
+        return pageIndex;
+    }
+
+    public int getPageNumber() {
+        return pageNumber;
+    }
+
+    public synchronized String getStatus() {
+        return status;
+    }
+
+    public synchronized boolean isSucceeded() {
+        return STATUS_SUCCEEDED.equals(status);
+    }
+
+    /**
+     * Pass that produced the page's image, or null if it has none.
+     */
+    public synchronized String getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * Document the image was rendered from (original, in-process, qpdf or ghostscript).
+     */
+    public synchronized String getSource() {
+        return source;
+    }
+
+    public synchronized float getDpi() {
+        return dpi;
+    }
+
+    public synchronized long getRenderTimeMs() {
+        return renderTimeMs;
+    }
+
+    public synchronized long getEncodeTimeMs() {
+        return encodeTimeMs;
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public synchronized boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * Exception class of the last failed attempt, or null once the page succeeded.
+     */
+    public synchronized String getExceptionClass() {
+        return exceptionClass;
+    }
+
+    public synchronized String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public synchronized int getAttemptCount() {
+        return attempts.size();
+    }
+
+    public synchronized List<Attempt> getAttempts() {
+        return new ArrayList<>(attempts);
+    }
+
+    /**
+     * File info of the written image, or null if the page has none.
+     */
+    public synchronized MetadataGenerator.FileInfo getFileInfo() {
+        return fileInfo;
+    }
+
+    /**
+     * Error line for the API's "errors" list, e.g. "Page 12: ..." or
+     * "Page 12 (72 DPI also failed): ..." after the DPI fallback.
+     */
+    public synchronized String describeError() {
+        String label = attempts.isEmpty() ? "" : describeStrategy(attempts.get(attempts.size() - 1).strategy);
+        return "Page " + pageNumber + label + ": " + errorMessage;
+    }
+
+    private static String describeStrategy(String strategy) {
+        return STRATEGY_DPI_FALLBACK.equals(strategy) ? " (72 DPI also failed)" : "";
+    }
+}
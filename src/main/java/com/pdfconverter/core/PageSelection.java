@@ -0,0 +1,126 @@
+package com.pdfconverter.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A set of 1-based page numbers parsed from a spec such as {@code 1-3,7,10-}.
+ * Supported terms are a single page ({@code 7}), a closed range ({@code 1-3})
+ * and an open range to the end of the document ({@code 10-}).
+ */
+public class PageSelection {
+    private static final PageSelection ALL = new PageSelection(List.of(), true);
+
+    private final List<int[]> ranges;
+    private final boolean all;
+
+    private PageSelection(List<int[]> ranges, boolean all) {
+        this.ranges = ranges;
+        this.all = all;
+    }
+
+    /**
+     * Selection of every page in the document.
+     */
+    public static PageSelection all() {
+        return ALL;
+    }
+
+    /**
+     * Parses a page spec.
+     *
+     * @param spec Page spec, or null/blank for all pages
+     * @return Parsed selection
+     * @throws IllegalArgumentException if the spec is malformed
+     */
+    public static PageSelection parse(String spec) {
+        if (spec == null || spec.isBlank() || spec.trim().equalsIgnoreCase("all")) {
+            return ALL;
+        }
+
+        List<int[]> ranges = new ArrayList<>();
+        for (String term : spec.split(",")) {
+            String trimmed = term.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+
+            int dash = trimmed.indexOf('-');
+            int start;
+            int end;
+            try {
+                if (dash < 0) {
+                    start = Integer.parseInt(trimmed);
+                    end = start;
+                } else {
+                    start = Integer.parseInt(trimmed.substring(0, dash).trim());
+                    String endPart = trimmed.substring(dash + 1).trim();
+                    end = endPart.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(endPart);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page term '" + trimmed + "'");
+            }
+
+            if (start < 1 || end < start) {
+                throw new IllegalArgumentException("Invalid page range '" + trimmed + "'");
+            }
+            ranges.add(new int[]{start, end});
+        }
+
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("Page selection is empty");
+        }
+        return new PageSelection(ranges, false);
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * Resolves the selection against a document.
+     *
+     * @param totalPages Number of pages in the document
+     * @return Sorted, de-duplicated 0-based page indices that exist in the document
+     */
+    public List<Integer> resolve(int totalPages) {
+        TreeSet<Integer> indices = new TreeSet<>();
+        if (all) {
+            for (int i = 0; i < totalPages; i++) {
+                indices.add(i);
+            }
+        } else {
+            for (int[] range : ranges) {
+                int last = Math.min(range[1], totalPages);
+                for (int page = range[0]; page <= last; page++) {
+                    indices.add(page - 1);
+                }
+            }
+        }
+        return new ArrayList<>(indices);
+    }
+
+    /**
+     * Canonical spec, e.g. {@code 1-3,7,10-}, or {@code all}.
+     */
+    @Override
+    public String toString() {
+        if (all) {
+            return "all";
+        }
+        StringBuilder spec = new StringBuilder();
+        for (int[] range : ranges) {
+            if (spec.length() > 0) {
+                spec.append(',');
+            }
+            spec.append(range[0]);
+            if (range[1] == Integer.MAX_VALUE) {
+                spec.append('-');
+            } else if (range[1] != range[0]) {
+                spec.append('-').append(range[1]);
+            }
+        }
+        return spec.toString();
+    }
+}
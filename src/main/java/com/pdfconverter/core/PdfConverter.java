@@ -1,19 +1,20 @@
 package com.pdfconverter.core;
 
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.rendering.PDFRenderer;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Core PDF to Image conversion engine using Apache PDFBox.
@@ -21,20 +22,98 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Integrates PDF repair for handling problematic PDFs.
  */
 public class PdfConverter {
+    /**
+     * File name of the multi-page TIFF in the output directory.
+     */
+    public static final String MULTIPAGE_FILENAME = "document.tiff";
+
     private final ImageWriter imageWriter;
     private final MetadataGenerator metadataGenerator;
     private final PdfRepairService repairService;
+    private final RenderScheduler renderScheduler;
+    private ConversionListener listener = ConversionListener.NONE;
+    private String jobName = "conversion";
+    private int schedulingWeight = 1;
+    private PageCache pageCache;
+    private RepairCache repairCache;
+    private String documentHash;
+    private volatile MultiPageTiffWriter tiffOutput;
+    private boolean checkpointing = false;
+    private String checkpointKey;
+    private volatile PageCheckpoint checkpoint;
+    private volatile RenderScheduler activeScheduler;
+    private DocumentLoader documentLoader = new DocumentLoader();
+    private volatile List<PageResult> pageResults;
+    private int repairCacheHits = 0;
 
     public PdfConverter() {
-        this.imageWriter = new ImageWriter();
-        this.metadataGenerator = new MetadataGenerator();
-        this.repairService = null; // No repair service in basic usage
+        this(null, null); // No repair service in basic usage
     }
 
     public PdfConverter(PdfRepairService repairService) {
+        this(repairService, null);
+    }
+
+    /**
+     * Creates a converter that renders pages on a shared scheduler.
+     * Without a scheduler, a private one is started for each conversion.
+     */
+    public PdfConverter(PdfRepairService repairService, RenderScheduler renderScheduler) {
         this.imageWriter = new ImageWriter();
         this.metadataGenerator = new MetadataGenerator();
         this.repairService = repairService;
+        this.renderScheduler = renderScheduler;
+    }
+
+    /**
+     * Enables per-page caching for the document with the given content hash.
+     * Pages found in the cache are linked into the output instead of rendered.
+     */
+    public void setPageCache(PageCache pageCache, String documentHash) {
+        this.pageCache = pageCache;
+        this.documentHash = documentHash;
+    }
+
+    /**
+     * Enables the repair cache for the document with the given content hash:
+     * repaired copies are reused across conversions, and documents whose
+     * fingerprint is known to need repair are rendered from a repaired copy right away.
+     */
+    public void setRepairCache(RepairCache repairCache, String documentHash) {
+        this.repairCache = repairCache;
+        this.documentHash = documentHash;
+    }
+
+    /**
+     * Enables the per-page checkpoint: written pages are recorded in the output
+     * directory, and a conversion into a directory left by an interrupted run
+     * of the same conversion only renders the pages that are missing.
+     */
+    public void setCheckpointing(boolean checkpointing) {
+        this.checkpointing = checkpointing;
+    }
+
+    /**
+     * Sets the name and round-robin weight used when scheduling this job's pages.
+     */
+    public void setScheduling(String jobName, int weight) {
+        this.jobName = jobName;
+        this.schedulingWeight = weight;
+    }
+
+    /**
+     * Sets the loader used for the input and repaired PDFs, which determines how
+     * documents are read and how much memory their scratch buffers may use.
+     */
+    public void setDocumentLoader(DocumentLoader documentLoader) {
+        this.documentLoader = documentLoader;
+    }
+
+    /**
+     * Sets the listener notified of stage changes and page progress.
+     */
+    public void setConversionListener(ConversionListener listener) {
+        this.listener = listener != null ? listener : ConversionListener.NONE;
     }
 
     /**
@@ -49,236 +128,569 @@ public class PdfConverter {
      * @throws IOException if conversion fails
      */
     public Map<String, Object> convertForApi(File inputPdf, File outputDir, int dpi, String format) throws IOException {
+        return convertForApi(inputPdf, outputDir, new ConversionOptions(dpi, format));
+    }
+
+    /**
+     * Converts the selected pages of a PDF file to images for API use.
+     * Automatically attempts repair if conversion fails.
+     *
+     * @param inputPdf  Input PDF file
+     * @param outputDir Output directory
+     * @param options   Render and output options
+     * @return Metadata map with conversion details
+     * @throws IOException if conversion fails
+     */
+    public Map<String, Object> convertForApi(File inputPdf, File outputDir, ConversionOptions options) throws IOException {
+        // Pages are rendered on the shared scheduler, or on a private one when running standalone
+        activeScheduler = renderScheduler;
+        if (activeScheduler == null) {
+            activeScheduler = new RenderScheduler(Math.min(8, Runtime.getRuntime().availableProcessors()));
+            activeScheduler.start();
+        }
+
+        // One document per busy render thread shares the job's scratch memory
+        documentLoader.setConcurrency(activeScheduler.getThreadCount());
+
+        checkpointKey = buildCheckpointKey(inputPdf, options);
+        boolean finished = false;
+        try (ConversionSession session = new ConversionSession(documentLoader)) {
+            Map<String, Object> result = convertWithRepair(inputPdf, outputDir, options, session);
+            finished = true;
+            return result;
+        } finally {
+            if (tiffOutput != null) {
+                tiffOutput.close();
+                tiffOutput = null;
+            }
+            closeCheckpoint(finished);
+            if (activeScheduler != renderScheduler) {
+                activeScheduler.stop();
+            }
+            activeScheduler = null;
+        }
+    }
+
+    /**
+     * Identifies the document and every option that affects the page images,
+     * so a checkpoint is only resumed by the same conversion.
+     */
+    private String buildCheckpointKey(File inputPdf, ConversionOptions options) {
+        String document = documentHash != null ? documentHash : inputPdf.length() + "@" + inputPdf.lastModified();
+        return document + "-" + options.getDpi() + "-" + options.getFormat()
+                + "-" + options.getTargetWidth() + "x" + options.getTargetHeight() + "-" + options.getMaxPixels()
+                + "-" + options.getColorMode() + "-" + options.getEncoderSettings();
+    }
+
+    /**
+     * Deletes the checkpoint of a finished conversion; an interrupted one keeps it for the next run.
+     */
+    private void closeCheckpoint(boolean finished) {
+        PageCheckpoint current = checkpoint;
+        if (current == null) {
+            return;
+        }
+        checkpoint = null;
+        try {
+            if (finished) {
+                current.delete();
+            } else {
+                current.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close page checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Direct conversion followed by the repair cascade for pages that failed.
+     * Every pass renders from the session's documents, so each file is parsed
+     * once per render thread for the whole cascade. The cascade is driven by
+     * the per-page results: each pass retries exactly the pages still failing.
+     */
+    private Map<String, Object> convertWithRepair(File inputPdf, File outputDir, ConversionOptions options,
+                                                  ConversionSession session) throws IOException {
         long overallStartTime = System.currentTimeMillis();
+        int dpi = options.getDpi();
+        listener.onStageChanged("rendering");
+        boolean repairAvailable = repairService != null && repairService.isAnyRepairAvailable();
+        RepairedPdf repairedPdf = null;
+        String repairedSource = PageResult.SOURCE_ORIGINAL;
+        int repairCacheHitsBefore = repairCacheHits;
+
+        // Documents whose fingerprint always needed repair skip the doomed direct pass
+        String fingerprint = repairAvailable && repairCache != null ? readFingerprint(session.getPool(inputPdf)) : null;
+        String knownStrategy = fingerprint != null ? repairCache.getKnownRepairStrategy(fingerprint) : null;
+        if (knownStrategy != null && isRepairToolAvailable(knownStrategy)) {
+            try {
+                System.out.println("→ Known fingerprint, rendering from " + knownStrategy + " repair: " + fingerprint);
+                repairedPdf = repairPages(knownStrategy, inputPdf, null, session);
+                repairedSource = knownStrategy;
+                repairCache.recordSkippedFirstPass();
+            } catch (IOException e) {
+                System.err.println(knownStrategy + " repair failed, rendering the original: " + e.getMessage());
+            }
+        }
         
-        // Attempt 1: Direct conversion at requested DPI
-        Map<String, Object> result = attemptConversion(inputPdf, outputDir, dpi, format);
-        int failedCount = (Integer) result.get("failedPages");
+        // Attempt 1: Direct conversion at requested DPI (or from the known repair)
+        List<PageResult> pages = new ArrayList<>();
+        Map<String, Object> result = repairedPdf != null
+                ? attemptConversion(session.getPool(repairedPdf.getFile()), outputDir, options, pages,
+                        repairedSource, repairedSource)
+                : attemptConversion(session.getPool(inputPdf), outputDir, options, pages,
+                        PageResult.STRATEGY_DIRECT, PageResult.SOURCE_ORIGINAL);
+        if (repairedPdf != null) {
+            result.put("repairMethod", repairedSource);
+            result.put("skippedFirstPass", true);
+        }
+        List<PageResult> failedPages = getFailedPages(pages);
         
         // If there are failures and repair is available, try repair strategies
-        if (failedCount > 0 && repairService != null && repairService.isAnyRepairAvailable()) {
-            System.out.println("\n⚠ " + failedCount + " page(s) failed. Attempting PDF repair...");
-            
-            // Extract failed page numbers from errors
-            @SuppressWarnings("unchecked")
-            List<String> errors = (List<String>) result.get("errors");
-            List<Integer> failedPageNumbers = extractPageNumbers(errors);
-            
-            File repairedPdf = null;
-            
-            // Priority 2: Try QPDF repair (fast, preserves quality)
-            if (repairService.isQpdfAvailable()) {
+        if (!failedPages.isEmpty() && repairAvailable) {
+            System.out.println("\n⚠ " + failedPages.size() + " page(s) failed. Attempting PDF repair...");
+            listener.onStageChanged("repairing");
+
+            // Priority 1b: In-process PDFBox rewrite (no process to start, fixes structural damage)
+            if (repairService.isInProcessRepairEnabled()) {
+                int failedCount = failedPages.size();
                 try {
-                    System.out.println("→ Strategy 2: QPDF repair...");
-                    repairedPdf = repairService.repairWithQpdf(inputPdf);
-                    
-                    // OPTIMIZATION: Only re-render failed pages, not entire PDF
-                    result = retryFailedPagesOnly(repairedPdf, outputDir, dpi, format, failedPageNumbers, result);
-                    failedCount = (Integer) result.get("failedPages");
-                    
-                    if (failedCount == 0) {
-                        System.out.println("✓ QPDF repair successful - all pages recovered!");
-                        result.put("repairMethod", "qpdf");
-                    } else {
-                        // Update failed page numbers for next attempt
-                        @SuppressWarnings("unchecked")
-                        List<String> remainingErrors = (List<String>) result.get("errors");
-                        failedPageNumbers = extractPageNumbers(remainingErrors);
+                    System.out.println("→ Strategy 1b: In-process repair (PDFBox)...");
+                    RepairedPdf inProcessPdf = repairPages(PageResult.STRATEGY_IN_PROCESS, inputPdf,
+                            getPageNumbers(failedPages), session);
+                    failedPages = retryFailedPages(session, inProcessPdf, outputDir, options, Float.MAX_VALUE,
+                            PageResult.STRATEGY_IN_PROCESS, PageResult.STRATEGY_IN_PROCESS, failedPages);
+                    repairedPdf = inProcessPdf;
+                    repairedSource = PageResult.STRATEGY_IN_PROCESS;
+
+                    if (failedPages.isEmpty()) {
+                        System.out.println("✓ In-process repair successful - all pages recovered!");
+                        result.put("repairMethod", PageResult.STRATEGY_IN_PROCESS);
                     }
                 } catch (IOException e) {
-                    System.err.println("QPDF repair failed: " + e.getMessage());
+                    System.err.println("In-process repair failed: " + e.getMessage());
                 }
+                repairService.recordInProcessOutcome(failedCount - failedPages.size(), failedPages.isEmpty());
             }
-            
-            // Priority 3: If still failing, try Ghostscript (comprehensive, preserves quality)
-            if (failedCount > 0 && repairService.isGhostscriptAvailable()) {
-                try {
-                    System.out.println("→ Strategy 3: Ghostscript repair...");
-                    repairedPdf = repairService.repairWithGhostscript(inputPdf);
-                    
-                    // OPTIMIZATION: Only re-render still-failing pages
-                    result = retryFailedPagesOnly(repairedPdf, outputDir, dpi, format, failedPageNumbers, result);
-                    failedCount = (Integer) result.get("failedPages");
-                    
-                    if (failedCount == 0) {
-                        System.out.println("✓ Ghostscript repair successful - all pages recovered!");
-                        result.put("repairMethod", "ghostscript");
-                    } else {
-                        // Update failed page numbers for fallback
-                        @SuppressWarnings("unchecked")
-                        List<String> remainingErrors = (List<String>) result.get("errors");
-                        failedPageNumbers = extractPageNumbers(remainingErrors);
+
+            if (failedPages.isEmpty()) {
+                // Nothing left for the external tools
+            } else if (repairService.shouldRepairSpeculatively(failedPages.size())
+                    && !hasCachedRepair(getPageNumbers(failedPages))) {
+                // Priorities 2 and 3 at once: re-render from whichever repaired copy is ready first
+                System.out.println("→ Strategies 2+3: QPDF and Ghostscript repair in parallel...");
+                try (SpeculativeRepair race = repairService.startSpeculativeRepair(inputPdf, getPageNumbers(failedPages))) {
+                    SpeculativeRepair.Result winner;
+                    while (!failedPages.isEmpty() && (winner = race.awaitNext()) != null) {
+                        String strategy = winner.getStrategy();
+                        System.out.println("  " + strategy + " repair ready after " + winner.getElapsedMs() + "ms");
+                        session.deleteOnClose(winner.getRepairedPdf().getFile());
+                        if (repairCache != null) {
+                            repairCache.store(documentHash, strategy, winner.getRepairedPdf());
+                        }
+                        try {
+                            failedPages = retryFailedPages(session, winner.getRepairedPdf(), outputDir, options,
+                                    Float.MAX_VALUE, strategy, strategy, failedPages);
+                            repairedPdf = winner.getRepairedPdf();
+                            repairedSource = strategy;
+
+                            if (failedPages.isEmpty()) {
+                                System.out.println("✓ " + strategy + " repair successful - all pages recovered!");
+                                result.put("repairMethod", strategy);
+                            }
+                        } catch (IOException e) {
+                            System.err.println(strategy + " repair failed: " + e.getMessage());
+                        }
                     }
+                    // Closing the race destroys the tool that is still running
                 } catch (IOException e) {
-                    System.err.println("Ghostscript repair failed: " + e.getMessage());
+                    System.err.println("Speculative repair failed: " + e.getMessage());
+                }
+            } else {
+                // Priority 2: Try QPDF repair (fast, preserves quality)
+                if (repairService.isQpdfAvailable()) {
+                    try {
+                        System.out.println("→ Strategy 2: QPDF repair...");
+                        RepairedPdf qpdfPdf = repairPages(PageResult.STRATEGY_QPDF, inputPdf,
+                                getPageNumbers(failedPages), session);
+                        
+                        // OPTIMIZATION: Only re-render failed pages, not entire PDF
+                        failedPages = retryFailedPages(session, qpdfPdf, outputDir, options, Float.MAX_VALUE,
+                                PageResult.STRATEGY_QPDF, PageResult.STRATEGY_QPDF, failedPages);
+                        repairedPdf = qpdfPdf;
+                        repairedSource = PageResult.STRATEGY_QPDF;
+                        
+                        if (failedPages.isEmpty()) {
+                            System.out.println("✓ QPDF repair successful - all pages recovered!");
+                            result.put("repairMethod", "qpdf");
+                        }
+                    } catch (IOException e) {
+                        System.err.println("QPDF repair failed: " + e.getMessage());
+                    }
+                }
+                
+                // Priority 3: If still failing, try Ghostscript (comprehensive, preserves quality)
+                if (!failedPages.isEmpty() && repairService.isGhostscriptAvailable()) {
+                    try {
+                        System.out.println("→ Strategy 3: Ghostscript repair...");
+                        RepairedPdf ghostscriptPdf = repairPages(PageResult.STRATEGY_GHOSTSCRIPT, inputPdf,
+                                getPageNumbers(failedPages), session);
+                        
+                        // OPTIMIZATION: Only re-render still-failing pages
+                        failedPages = retryFailedPages(session, ghostscriptPdf, outputDir, options, Float.MAX_VALUE,
+                                PageResult.STRATEGY_GHOSTSCRIPT, PageResult.STRATEGY_GHOSTSCRIPT, failedPages);
+                        repairedPdf = ghostscriptPdf;
+                        repairedSource = PageResult.STRATEGY_GHOSTSCRIPT;
+                        
+                        if (failedPages.isEmpty()) {
+                            System.out.println("✓ Ghostscript repair successful - all pages recovered!");
+                            result.put("repairMethod", "ghostscript");
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Ghostscript repair failed: " + e.getMessage());
+                    }
                 }
             }
             
             // Priority 4: Last resort - try lower DPI (quality compromise)
-            if (failedCount > 0 && dpi > 72) {
+            if (!failedPages.isEmpty() && (dpi > 72 || options.hasTargetSize())) {
+                int failedCount = failedPages.size();
                 System.out.println("→ Strategy 4 (Last Resort): Fallback to 72 DPI for remaining " + failedCount + " pages...");
-                File pdfToUse = repairedPdf != null ? repairedPdf : inputPdf;
+                RepairedPdf pdfToUse = repairedPdf != null ? repairedPdf : RepairedPdf.wholeDocument(inputPdf);
                 
-                // OPTIMIZATION: Only retry still-failing pages at 72 DPI
-                result = retryFailedPagesAt72DPI(pdfToUse, outputDir, format, failedPageNumbers, result);
-                failedCount = (Integer) result.get("failedPages");
+                // OPTIMIZATION: Only retry still-failing pages at 72 DPI, from the already parsed document
+                // (every page still failing is part of the last repaired copy)
+                failedPages = retryFailedPages(session, pdfToUse, outputDir, options, 1f,
+                        PageResult.STRATEGY_DPI_FALLBACK, repairedSource, failedPages);
                 
-                if (failedCount < failedPageNumbers.size()) {
+                if (failedPages.size() < failedCount) {
                     result.put("repairMethod", result.containsKey("repairMethod") ? 
                         result.get("repairMethod") + "+dpi-fallback" : "dpi-fallback");
                 }
             }
         }
+
+        addResumedRepairMethods(result, pages);
+        if (tiffOutput != null) {
+            finishMultipageOutput(pages);
+        }
+        applyPageResults(result, pages);
+        this.pageResults = pages;
+        if (repairCache != null) {
+            result.put("repairCacheHits", repairCacheHits - repairCacheHitsBefore);
+            if (!result.containsKey("skippedFirstPass")) {
+                repairCache.recordOutcome(fingerprint, getRecoveringStrategy(pages));
+            }
+        }
+
+        // metadata.json describes the final state of every page, after all passes
+        metadataGenerator.generateMetadata(
+                outputDir,
+                (Integer) result.get("totalPages"),
+                options.getPageSelection().toString(),
+                pages.size(),
+                (Integer) result.get("successfulPages"),
+                System.currentTimeMillis() - overallStartTime,
+                dpi,
+                options.getFormat(),
+                inputPdf.getName(),
+                getFileInfos(pages),
+                getErrors(pages),
+                pages
+        );
         
-        // Add overall timing
+        // Add overall timing and input I/O
         long totalTime = System.currentTimeMillis() - overallStartTime;
         result.put("totalTimeSeconds", totalTime / 1000.0);
+        result.putAll(documentLoader.getStatistics());
         
         return result;
     }
-    
+
     /**
-     * Extract page numbers from error messages.
+     * Per-page results of the last conversion, in page order; null before the first one.
      */
-    private List<Integer> extractPageNumbers(List<String> errors) {
-        List<Integer> pageNumbers = new ArrayList<>();
-        if (errors == null) return pageNumbers;
-        
-        for (String error : errors) {
+    public List<PageResult> getPageResults() {
+        return pageResults;
+    }
+
+    private static List<PageResult> getFailedPages(List<PageResult> pages) {
+        List<PageResult> failed = new ArrayList<>();
+        for (PageResult page : pages) {
+            if (!page.isSucceeded()) {
+                failed.add(page);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Repaired copy of the given pages made by one tool, taken from the repair
+     * cache when possible. The copy is deleted when the session closes.
+     *
+     * @param pageNumbers Pages to repair, or null for the whole document
+     */
+    private RepairedPdf repairPages(String strategy, File inputPdf, List<Integer> pageNumbers,
+                                    ConversionSession session) throws IOException {
+        List<Integer> pages = pageNumbers != null && repairService.isPageSubsetRepair()
+                ? new ArrayList<>(new TreeSet<>(pageNumbers))
+                : null;
+
+        if (repairCache != null) {
+            File target = File.createTempFile("repair-cached-", ".pdf");
+            session.deleteOnClose(target);
+            RepairedPdf cached = repairCache.lookup(documentHash, strategy, pages, target);
+            if (cached != null) {
+                System.out.println("  Reusing cached " + strategy + " repair");
+                repairCacheHits++;
+                return cached;
+            }
+        }
+
+        RepairedPdf repaired = repairService.repair(strategy, inputPdf, pages);
+        session.deleteOnClose(repaired.getFile());
+        if (repairCache != null) {
+            repairCache.store(documentHash, strategy, repaired);
+        }
+        return repaired;
+    }
+
+    private boolean hasCachedRepair(List<Integer> pageNumbers) {
+        if (repairCache == null) {
+            return false;
+        }
+        List<Integer> pages = repairService.isPageSubsetRepair() ? new ArrayList<>(new TreeSet<>(pageNumbers)) : null;
+        return repairCache.contains(documentHash, PageResult.STRATEGY_QPDF, pages)
+                || repairCache.contains(documentHash, PageResult.STRATEGY_GHOSTSCRIPT, pages);
+    }
+
+    private boolean isRepairToolAvailable(String strategy) {
+        if (PageResult.STRATEGY_IN_PROCESS.equals(strategy)) {
+            return repairService.isInProcessRepairEnabled();
+        }
+        return PageResult.STRATEGY_QPDF.equals(strategy) ? repairService.isQpdfAvailable()
+                : PageResult.STRATEGY_GHOSTSCRIPT.equals(strategy) && repairService.isGhostscriptAvailable();
+    }
+
+    /**
+     * Fingerprint of the original document, or null if it cannot be parsed.
+     */
+    private static String readFingerprint(DocumentHandlePool documentPool) {
+        try {
+            DocumentHandlePool.Handle handle = documentPool.borrow();
             try {
-                // Extract "Page X:" from error message
-                int pageStart = error.indexOf("Page ") + 5;
-                int colonIndex = error.indexOf(':', pageStart);
-                if (colonIndex > pageStart) {
-                    String pageStr = error.substring(pageStart, colonIndex).trim();
-                    pageNumbers.add(Integer.parseInt(pageStr));
-                }
-            } catch (Exception e) {
-                // Skip malformed error messages
+                return RepairCache.fingerprint(handle.getDocument());
+            } finally {
+                documentPool.release(handle);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds the passes that recovered pages resumed from the checkpoint to
+     * repairMethod; the interrupted run that recovered them never reported it.
+     */
+    private static void addResumedRepairMethods(Map<String, Object> result, List<PageResult> pages) {
+        for (PageResult page : pages) {
+            String strategy = page.getStrategy();
+            if (!page.isSucceeded() || !PageResult.SOURCE_CHECKPOINT.equals(page.getSource())
+                    || PageResult.STRATEGY_DIRECT.equals(strategy)) {
+                continue;
+            }
+            Object repairMethod = result.get("repairMethod");
+            if (repairMethod == null) {
+                result.put("repairMethod", strategy);
+            } else if (!Arrays.asList(repairMethod.toString().split("\\+")).contains(strategy)) {
+                result.put("repairMethod", repairMethod + "+" + strategy);
+            }
+        }
+    }
+
+    /**
+     * Repair tool that produced most of the pages, or null if no page came from a repaired copy.
+     */
+    private static String getRecoveringStrategy(List<PageResult> pages) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (PageResult page : pages) {
+            String strategy = page.getStrategy();
+            if (PageResult.STRATEGY_IN_PROCESS.equals(strategy) || PageResult.STRATEGY_QPDF.equals(strategy)
+                    || PageResult.STRATEGY_GHOSTSCRIPT.equals(strategy)) {
+                counts.merge(strategy, 1, Integer::sum);
+            }
+        }
+        String best = null;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (best == null || entry.getValue() > counts.get(best)) {
+                best = entry.getKey();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Closes the multi-page TIFF, which puts its frames in planned page order,
+     * and records each page's final frame index.
+     */
+    private void finishMultipageOutput(List<PageResult> pages) throws IOException {
+        tiffOutput.close();
+        for (PageResult page : pages) {
+            MetadataGenerator.FileInfo fileInfo = page.getFileInfo();
+            if (fileInfo != null) {
+                fileInfo.setFrame(tiffOutput.getFinalFrame(page.getPageNumber()));
             }
         }
+    }
+
+    private static List<Integer> getPageNumbers(List<PageResult> pages) {
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (PageResult page : pages) {
+            pageNumbers.add(page.getPageNumber());
+        }
         return pageNumbers;
     }
+
+    private static List<MetadataGenerator.FileInfo> getFileInfos(List<PageResult> pages) {
+        List<MetadataGenerator.FileInfo> files = new ArrayList<>();
+        for (PageResult page : pages) {
+            if (page.getFileInfo() != null) {
+                files.add(page.getFileInfo());
+            }
+        }
+        return files;
+    }
+
+    private static List<String> getErrors(List<PageResult> pages) {
+        List<String> errors = new ArrayList<>();
+        for (PageResult page : getFailedPages(pages)) {
+            errors.add(page.describeError());
+        }
+        return errors;
+    }
+
+    /**
+     * Writes the page counts, files and errors of the API result from the page results.
+     */
+    private static void applyPageResults(Map<String, Object> result, List<PageResult> pages) {
+        List<MetadataGenerator.FileInfo> files = getFileInfos(pages);
+        List<String> errors = getErrors(pages);
+
+        result.put("successfulPages", pages.size() - errors.size());
+        result.put("failedPages", errors.size());
+        result.put("files", files);
+        result.put("pageCacheHits", files.stream().filter(MetadataGenerator.FileInfo::isCacheHit).count());
+        result.put("encodeTimeMs", files.stream().mapToLong(MetadataGenerator.FileInfo::getEncodeTimeMs).sum());
+        if (!errors.isEmpty()) {
+            result.put("errors", errors);
+        } else {
+            result.remove("errors");
+        }
+    }
     
     /**
      * Attempt conversion without repair.
+     * Each page task borrows its own document handle, so no PDFBox object
+     * is used by two threads at once. The pool belongs to the session and
+     * stays open for the retries.
+     *
+     * @param pages    Receives one result per selected page, in page order
+     * @param strategy Pass the attempts belong to (direct, or a known repair)
+     * @param source   Document the pool renders from
      */
-    private Map<String, Object> attemptConversion(File inputPdf, File outputDir, int dpi, String format) throws IOException {
+    private Map<String, Object> attemptConversion(DocumentHandlePool documentPool, File outputDir,
+                                                  ConversionOptions options, List<PageResult> pages,
+                                                  String strategy, String source)
+            throws IOException {
         long startTime = System.currentTimeMillis();
+        int dpi = options.getDpi();
+        String format = options.getFormat();
+        PageSelection pageSelection = options.getPageSelection();
 
-        PDDocument document = null;
         try {
-            // Load PDF with lenient mode to handle malformed PDFs
-            document = PDDocument.load(inputPdf, org.apache.pdfbox.io.MemoryUsageSetting.setupTempFileOnly());
-            
-            // Set lenient parsing to handle structure issues
-            document.setAllSecurityToBeRemoved(true);
-            
-            int totalPages = document.getNumberOfPages();
+            // Load the first handle to read the page count; it is reused by a worker
+            DocumentHandlePool.Handle firstHandle = documentPool.borrow();
+            int totalPages = firstHandle.getDocument().getNumberOfPages();
+            documentPool.release(firstHandle);
+
+            // Only the selected pages are ever touched; other pages are never parsed
+            List<Integer> pageIndices = pageSelection.resolve(totalPages);
+            if (pageIndices.isEmpty()) {
+                throw new IOException("Page selection '" + pageSelection + "' matches no pages of a "
+                        + totalPages + "-page document");
+            }
+            List<Integer> pageNumbers = new ArrayList<>();
+            for (int pageIndex : pageIndices) {
+                pageNumbers.add(pageIndex + 1);
+                pages.add(new PageResult(pageIndex));
+            }
+            listener.onPagesPlanned(totalPages, pageNumbers);
 
             // Create output directory
             if (!outputDir.exists() && !outputDir.mkdirs()) {
                 throw new IOException("Failed to create output directory: " + outputDir);
             }
 
-            // Create PDF renderer
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-
-            // Track file sizes
-            List<MetadataGenerator.FileInfo> fileSizes = metadataGenerator.createFileInfoList();
-            
-            // Track failed pages
-            List<String> failedPages = new ArrayList<>();
-
-            // Adaptive thread count based on page count
-            // Small PDFs (< 50 pages): 2 threads
-            // Medium PDFs (50-200 pages): 4 threads  
-            // Large PDFs (200-500 pages): 6 threads
-            // Huge PDFs (> 500 pages): 8 threads
-            // Never exceed available processors
-            int numThreads = Math.min(
-                Math.max(totalPages / 50, 2),  // 1 thread per 50 pages, minimum 2
-                Math.min(8, Runtime.getRuntime().availableProcessors())  // Max 8, or CPU count
-            );
-            
-            System.out.println("Processing " + totalPages + " pages with " + numThreads + " threads");
-            
-            ExecutorService executor = Executors.newFixedThreadPool(numThreads);
-            AtomicInteger processedPages = new AtomicInteger(0);
-            AtomicInteger successfulPages = new AtomicInteger(0);
-
-            // Submit conversion tasks
-            for (int i = 0; i < totalPages; i++) {
-                final int pageIndex = i;
-                final int pageNumber = i + 1;
-
-                executor.submit(() -> {
-                    try {
-                        // Try with requested DPI only (no premature fallback)
-                        BufferedImage image = pdfRenderer.renderImageWithDPI(pageIndex, dpi);
-                        String filename = imageWriter.generateFilename(pageNumber, format);
-                        File outputFile = new File(outputDir, filename);
-                        long fileSize = imageWriter.writeImage(image, outputFile, format);
-
-                        synchronized (fileSizes) {
-                            fileSizes.add(metadataGenerator.createFileInfo(filename, fileSize, outputFile.getAbsolutePath()));
-                        }
-
-                        successfulPages.incrementAndGet();
-                    } catch (Exception e) {
-                        // Page failed - will be handled by repair service
-                        String errorMsg = "Page " + pageNumber + ": " + e.getMessage();
-                        System.err.println("Error processing " + errorMsg);
-                        synchronized (failedPages) {
-                            failedPages.add(errorMsg);
-                        }
-                    }
-                    
-                    processedPages.incrementAndGet();
-                });
+            if (options.isMultipage()) {
+                tiffOutput = imageWriter.openMultiPageTiff(new File(outputDir, MULTIPAGE_FILENAME), pageNumbers,
+                        options.getEncoderSettings());
             }
 
-            // Shutdown and wait for ALL threads to complete
-            executor.shutdown();
-            boolean completed = executor.awaitTermination(1, TimeUnit.HOURS);
-            
-            if (!completed) {
-                executor.shutdownNow();
-                throw new IOException("Conversion timed out");
+            // Pages written by an interrupted run of this conversion are kept if they verify
+            List<PageResult> pagesToRender = pages;
+            int resumedPages = 0;
+            if (checkpointing && tiffOutput == null) {
+                checkpoint = PageCheckpoint.open(outputDir, totalPages, checkpointKey);
+                if (checkpoint.getRestoredPages() > 0) {
+                    pagesToRender = resumeFromCheckpoint(pages, outputDir, format);
+                    resumedPages = pages.size() - pagesToRender.size();
+                    System.out.println("Resuming from checkpoint: " + resumedPages + " of " + pages.size()
+                            + " pages already written");
+                }
             }
+
+            System.out.println("Processing " + pagesToRender.size() + " of " + totalPages + " pages on "
+                    + activeScheduler.getThreadCount() + " shared render thread(s)");
+
+            renderPages(documentPool, null, pagesToRender, options, Float.MAX_VALUE, outputDir,
+                    strategy, source, true);
             
-            // NOW it's safe - all threads are done, document can be closed in finally
+            // NOW it's safe - all workers are done, documents stay open in the session
 
             // Calculate time
             long endTime = System.currentTimeMillis();
             long timeTaken = endTime - startTime;
 
-            // Generate metadata file
-            metadataGenerator.generateMetadata(
-                    outputDir,
-                    totalPages,
-                    successfulPages.get(),
-                    timeTaken,
-                    dpi,
-                    format,
-                    inputPdf.getName(),
-                    fileSizes,
-                    failedPages
-            );
-
-            // Return metadata as map
+            // Return metadata as map; page counts and files are filled in from the page results
             Map<String, Object> metadata = new HashMap<>();
             metadata.put("totalPages", totalPages);
-            metadata.put("successfulPages", successfulPages.get());
-            metadata.put("failedPages", failedPages.size());
+            metadata.put("requestedPages", pageSelection.toString());
+            metadata.put("requestedPageCount", pageIndices.size());
             metadata.put("timeTakenSeconds", timeTaken / 1000.0);
             metadata.put("dpi", dpi);
             metadata.put("format", format);
-            metadata.put("files", fileSizes);
+            if (options.hasTargetSize()) {
+                metadata.put("targetWidth", options.getTargetWidth());
+                metadata.put("targetHeight", options.getTargetHeight());
+            }
+            if (options.getMaxPixels() > 0) {
+                metadata.put("maxPixels", options.getMaxPixels());
+            }
+            if (tiffOutput != null) {
+                metadata.put("outputFile", MULTIPAGE_FILENAME);
+            }
+            if (resumedPages > 0) {
+                metadata.put("resumedPages", resumedPages);
+            }
+            if (!ConversionOptions.COLOR_MODE_COLOR.equals(options.getColorMode())) {
+                metadata.put("colorMode", options.getColorMode());
+            }
+            if (!options.getEncoderSettings().isDefault()) {
+                metadata.put("encoderSettings", options.getEncoderSettings().toString());
+            }
             
-            if (!failedPages.isEmpty()) {
-                metadata.put("errors", failedPages);
-                System.out.println("Warning: " + failedPages.size() + " page(s) failed to convert");
+            int failedCount = getFailedPages(pages).size();
+            if (failedCount > 0) {
+                System.out.println("Warning: " + failedCount + " page(s) failed to convert");
             }
 
             return metadata;
@@ -286,157 +698,265 @@ public class PdfConverter {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IOException("Conversion interrupted", e);
-        } finally {
-            if (document != null) {
-                try {
-                    document.close();
-                } catch (IOException e) {
-                    System.err.println("Warning: Failed to close PDF document: " + e.getMessage());
-                }
+        }
+    }
+
+    /**
+     * Records the pages whose images were written by an interrupted run and
+     * still match their checkpointed size and checksum as succeeded, with the
+     * pass and DPI that run rendered them with.
+     *
+     * @return Pages that still have to be rendered
+     */
+    private List<PageResult> resumeFromCheckpoint(List<PageResult> pages, File outputDir, String format)
+            throws IOException {
+        List<PageResult> remaining = new ArrayList<>();
+        for (PageResult page : pages) {
+            String filename = imageWriter.generateFilename(page.getPageNumber(), format);
+            File outputFile = new File(outputDir, filename);
+            PageResult.Attempt attempt = checkpoint.verify(page.getPageIndex(), outputFile);
+            if (attempt == null) {
+                remaining.add(page);
+                continue;
             }
+
+            page.recordSuccess(attempt, 0,
+                    metadataGenerator.createFileInfo(filename, outputFile.length(), outputFile.getAbsolutePath(), 0L));
+            listener.onPageFinished(page.getPageNumber(), true);
+            listener.onPageWritten(page.getPageNumber(), outputFile);
         }
+        return remaining;
     }
-    
+
     /**
-     * Retry only specific failed pages after repair (OPTIMIZATION).
-     * This avoids re-rendering successful pages.
+     * Records a written page in the checkpoint and reports it to the listener.
+     * A checkpoint that cannot be updated only costs the page on a resume.
      */
-    private Map<String, Object> retryFailedPagesOnly(File repairedPdf, File outputDir, int dpi, 
-                                                      String format, List<Integer> failedPageNumbers,
-                                                      Map<String, Object> previousResult) throws IOException {
-        if (failedPageNumbers.isEmpty()) {
-            return previousResult;
+    private void pageWritten(int pageIndex, File outputFile, PageResult.Attempt attempt) {
+        PageCheckpoint current = checkpoint;
+        if (current != null) {
+            try {
+                current.markWritten(pageIndex, outputFile, attempt);
+            } catch (IOException e) {
+                System.err.println("Failed to checkpoint page " + (pageIndex + 1) + ": " + e.getMessage());
+            }
         }
+        listener.onPageWritten(pageIndex + 1, outputFile);
+    }
+
+    /**
+     * Renders pages in parallel on the scheduler, one task per page. Each task
+     * borrows its own document handle from the pool, so a page never shares a
+     * PDFBox object with another thread. Every task records an attempt in its
+     * page's result.
+     *
+     * @param repairedPdf Page mapping of the pool's document if it is a repaired copy, or null
+     * @param maxScale    Upper bound on the scale (1.0 for the 72 DPI fallback)
+     * @param strategy    Pass the attempts belong to (PageResult.STRATEGY_*)
+     * @param source      Document the pool was opened on (original, qpdf or ghostscript)
+     * @param initialPass Whether page progress is reported to the listener (only the first pass is)
+     */
+    private void renderPages(DocumentHandlePool documentPool, RepairedPdf repairedPdf, List<PageResult> pages,
+                             ConversionOptions options, float maxScale, File outputDir, String strategy,
+                             String source, boolean initialPass)
+            throws IOException, InterruptedException {
+        MemoryBudget memoryBudget = activeScheduler.getMemoryBudget();
+        RenderScheduler.Batch batch = activeScheduler.createBatch(jobName, schedulingWeight);
+        Map<PageResult, Integer> attemptsBefore = new HashMap<>();
 
-        System.out.println("  Retrying " + failedPageNumbers.size() + " failed page(s) only...");
-        
-        PDDocument document = null;
         try {
-            document = PDDocument.load(repairedPdf, org.apache.pdfbox.io.MemoryUsageSetting.setupTempFileOnly());
-            document.setAllSecurityToBeRemoved(true);
+            // Submit one task per page
+            for (PageResult page : pages) {
+                final int pageIndex = page.getPageIndex();
+                final int pageNumber = page.getPageNumber();
+                final int documentPageIndex = repairedPdf != null ? repairedPdf.toRepairedIndex(pageIndex) : pageIndex;
+                attemptsBefore.put(page, page.getAttemptCount());
 
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            
-            @SuppressWarnings("unchecked")
-            List<MetadataGenerator.FileInfo> existingFiles = (List<MetadataGenerator.FileInfo>) previousResult.get("files");
-            List<String> newErrors = new ArrayList<>();
-            int recovered = 0;
-            
-            // Only process pages that failed before
-            for (int pageNumber : failedPageNumbers) {
-                int pageIndex = pageNumber - 1;
-                
-                try {
-                    BufferedImage image = pdfRenderer.renderImageWithDPI(pageIndex, dpi);
-                    String filename = imageWriter.generateFilename(pageNumber, format);
-                    File outputFile = new File(outputDir, filename);
-                    long fileSize = imageWriter.writeImage(image, outputFile, format);
-                    
-                    existingFiles.add(metadataGenerator.createFileInfo(filename, fileSize, outputFile.getAbsolutePath()));
-                    recovered++;
-                } catch (Exception e) {
-                    newErrors.add("Page " + pageNumber + ": " + e.getMessage());
-                }
-            }
-            
-            // Update result
-            int successfulPages = (Integer) previousResult.get("successfulPages") + recovered;
-            previousResult.put("successfulPages", successfulPages);
-            previousResult.put("failedPages", newErrors.size());
-            previousResult.put("files", existingFiles);
-            
-            if (!newErrors.isEmpty()) {
-                previousResult.put("errors", newErrors);
-            } else {
-                previousResult.remove("errors");
+                batch.submit(() -> {
+                    PageResult.Attempt attempt = new PageResult.Attempt(strategy, source);
+                    long attemptStart = System.currentTimeMillis();
+                    DocumentHandlePool.Handle handle = null;
+                    try {
+                        if (documentPageIndex < 0) {
+                            throw new IOException("Page is not part of the repaired copy");
+                        }
+                        handle = documentPool.borrow();
+
+                        MetadataGenerator.FileInfo fileInfo = renderPage(
+                                handle.getDocument(), handle.getRenderer(), documentPageIndex, pageIndex, options,
+                                maxScale, outputDir, memoryBudget, attempt);
+
+                        page.recordSuccess(attempt, System.currentTimeMillis() - attemptStart, fileInfo);
+                        if (initialPass) {
+                            listener.onPageFinished(pageNumber, true);
+                        }
+                    } catch (Exception | OutOfMemoryError e) {
+                        // Page failed - will be handled by the next repair strategy.
+                        // An oversized raster is retried at a lower resolution by the DPI fallback.
+                        page.recordFailure(attempt, System.currentTimeMillis() - attemptStart, e);
+                        System.err.println("Error processing " + page.describeError());
+                        if (initialPass) {
+                            listener.onPageFinished(pageNumber, false);
+                        }
+                    } finally {
+                        documentPool.release(handle);
+                    }
+                });
             }
-            
-            if (recovered > 0) {
-                System.out.println("  ✓ Recovered " + recovered + " of " + failedPageNumbers.size() + " pages");
+
+            // Wait for ALL page tasks to complete
+            if (!batch.await(1, TimeUnit.HOURS)) {
+                batch.cancel();
+                throw new IOException("Conversion timed out");
             }
-            
-            return previousResult;
-            
-        } finally {
-            if (document != null) {
-                try {
-                    document.close();
-                } catch (IOException e) {
-                    System.err.println("Warning: Failed to close PDF document: " + e.getMessage());
-                }
+        } catch (InterruptedException e) {
+            batch.cancel();
+            throw e;
+        }
+
+        // A task killed by an unexpected error must not leave its page unaccounted for
+        for (PageResult page : pages) {
+            if (page.getAttemptCount() == attemptsBefore.get(page)) {
+                page.recordFailure(new PageResult.Attempt(strategy, source), 0,
+                        new IOException("Render task did not complete"));
             }
         }
     }
-    
+
     /**
-     * Retry failed pages at 72 DPI (OPTIMIZATION).
-     * Only processes pages that are still failing.
+     * Renders a single page and writes it to the output directory.
+     * The page is rendered directly at the scale derived from the options
+     * (DPI or target pixel size), so no oversized raster is ever allocated.
+     * A page already in the page cache is linked from there without rendering.
+     * Otherwise the page's raster size is reserved from the memory budget
+     * (if any) for the duration of the render and encode.
+     *
+     * @param documentPageIndex Index of the page in the document (differs from pageIndex in a repaired page subset)
+     * @param pageIndex         Index of the page in the original document, used for output names and caching
+     * @param maxScale          Upper bound on the scale (1.0 for the 72 DPI fallback)
+     * @param attempt           Receives the effective DPI and the render time
+     * @return File info for the written image
      */
-    private Map<String, Object> retryFailedPagesAt72DPI(File inputPdf, File outputDir, String format,
-                                                         List<Integer> failedPageNumbers,
-                                                         Map<String, Object> previousResult) throws IOException {
-        if (failedPageNumbers.isEmpty()) {
-            return previousResult;
-        }
+    private MetadataGenerator.FileInfo renderPage(PDDocument document, PDFRenderer renderer, int documentPageIndex,
+                                                  int pageIndex,
+                                                  ConversionOptions options, float maxScale, File outputDir,
+                                                  MemoryBudget memoryBudget, PageResult.Attempt attempt)
+            throws IOException {
+        int pageNumber = pageIndex + 1;
+        String format = options.getFormat();
+        String filename = imageWriter.generateFilename(pageNumber, format);
+        File outputFile = new File(outputDir, filename);
+        PDPage page = document.getPage(documentPageIndex);
+        float scale = options.computeScale(page, maxScale);
+        attempt.setDpi(scale * 72);
 
-        PDDocument document = null;
-        try {
-            document = PDDocument.load(inputPdf, org.apache.pdfbox.io.MemoryUsageSetting.setupTempFileOnly());
-            document.setAllSecurityToBeRemoved(true);
+        String cacheKey = null;
+        if (tiffOutput == null && pageCache != null && pageCache.isEnabled() && documentHash != null) {
+            cacheKey = PageCache.buildKey(documentHash, pageIndex,
+                    String.format("s%.6f-%s-%s", scale, options.getColorMode(), options.getEncoderSettings()), format);
+            if (pageCache.lookup(cacheKey, outputFile)) {
+                pageWritten(pageIndex, outputFile, attempt);
+                return metadataGenerator.createFileInfo(filename, outputFile.length(),
+                        outputFile.getAbsolutePath(), true);
+            }
+        }
 
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            
-            @SuppressWarnings("unchecked")
-            List<MetadataGenerator.FileInfo> existingFiles = (List<MetadataGenerator.FileInfo>) previousResult.get("files");
-            List<String> stillFailing = new ArrayList<>();
-            int recovered = 0;
-            
-            // Only retry pages that are still failing
-            for (int pageNumber : failedPageNumbers) {
-                int pageIndex = pageNumber - 1;
-                
-                try {
-                    // Try rendering at 72 DPI
-                    BufferedImage image = pdfRenderer.renderImageWithDPI(pageIndex, 72);
-                    String filename = imageWriter.generateFilename(pageNumber, format);
-                    File outputFile = new File(outputDir, filename);
-                    long fileSize = imageWriter.writeImage(image, outputFile, format);
-                    
-                    existingFiles.add(metadataGenerator.createFileInfo(filename, fileSize, outputFile.getAbsolutePath()));
-                    recovered++;
-                    
-                    System.out.println("✓ Page " + pageNumber + " recovered at 72 DPI");
-                } catch (Exception e) {
-                    stillFailing.add("Page " + pageNumber + " (72 DPI also failed): " + e.getMessage());
-                }
+        long reservedBytes = 0;
+        if (memoryBudget != null) {
+            try {
+                reservedBytes = memoryBudget.acquire(estimateRasterBytes(page, scale, options.getBitsPerPixel()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for render memory", e);
             }
-            
-            // Update result
-            int successfulPages = (Integer) previousResult.get("successfulPages") + recovered;
-            previousResult.put("successfulPages", successfulPages);
-            previousResult.put("failedPages", stillFailing.size());
-            previousResult.put("files", existingFiles);
-            
-            if (!stillFailing.isEmpty()) {
-                previousResult.put("errors", stillFailing);
-            } else {
-                previousResult.remove("errors");
+        }
+
+        try {
+            // Render straight into the raster type the encoder writes (RGB, gray or 1-bit)
+            long renderStart = System.currentTimeMillis();
+            BufferedImage image = renderer.renderImage(documentPageIndex, scale, options.getImageType());
+            attempt.setRenderTimeMs(System.currentTimeMillis() - renderStart);
+            if (tiffOutput != null) {
+                MultiPageTiffWriter.Frame frame = tiffOutput.writePage(pageNumber, image);
+                return metadataGenerator.createFrameInfo(MULTIPAGE_FILENAME, pageNumber, frame.getIndex(),
+                        frame.getSizeBytes(), tiffOutput.getFile().getAbsolutePath(), frame.getEncodeTimeMs());
             }
-            
-            if (recovered > 0) {
-                System.out.println("✓ Recovered " + recovered + " page(s) using 72 DPI fallback");
+
+            long encodeStart = System.nanoTime();
+            long fileSize = imageWriter.writeImage(image, outputFile, format, options.getEncoderSettings());
+            long encodeTimeMs = (System.nanoTime() - encodeStart) / 1_000_000;
+            if (cacheKey != null) {
+                pageCache.store(cacheKey, outputFile);
             }
-            
-            return previousResult;
-            
+            pageWritten(pageIndex, outputFile, attempt);
+            return metadataGenerator.createFileInfo(filename, fileSize, outputFile.getAbsolutePath(), encodeTimeMs);
         } finally {
-            if (document != null) {
-                try {
-                    document.close();
-                } catch (IOException e) {
-                    System.err.println("Warning: Failed to close PDF document: " + e.getMessage());
-                }
+            if (memoryBudget != null) {
+                memoryBudget.release(reservedBytes);
+            }
+        }
+    }
+
+    /**
+     * Estimates the raster size of a page rendered at the given scale.
+     * PDFRenderer rasterizes the crop box (which defaults to the MediaBox);
+     * rows of sub-byte rasters are padded to whole bytes.
+     */
+    static long estimateRasterBytes(PDPage page, float scale, int bitsPerPixel) {
+        PDRectangle box = page.getCropBox();
+        long width = (long) Math.ceil(box.getWidth() * scale);
+        long height = (long) Math.ceil(box.getHeight() * scale);
+        return (width * bitsPerPixel + 7) / 8 * height;
+    }
+    
+    /**
+     * Retry only specific failed pages (OPTIMIZATION), in parallel.
+     * This avoids re-rendering successful pages, and the pool's documents are
+     * reused if the file was already rendered from (e.g. the 72 DPI fallback).
+     * A repaired copy may hold only the failing pages; they are looked up
+     * through its page mapping.
+     *
+     * @param repairedPdf Document to render from, with its page mapping
+     * @param maxScale    Upper bound on the scale (1.0 for the 72 DPI fallback)
+     * @param strategy    Pass the attempts belong to (PageResult.STRATEGY_*)
+     * @param source      Document the pages are rendered from
+     * @return Pages still failing after this pass
+     * @throws IOException if the repaired copy does not have the expected pages
+     */
+    private List<PageResult> retryFailedPages(ConversionSession session, RepairedPdf repairedPdf, File outputDir,
+                                              ConversionOptions options, float maxScale, String strategy,
+                                              String source, List<PageResult> failedPages) throws IOException {
+        if (failedPages.isEmpty()) {
+            return failedPages;
+        }
+
+        DocumentHandlePool documentPool = session.getPool(repairedPdf.getFile());
+        if (repairedPdf.getExpectedPageCount() >= 0) {
+            // A tool that ignored the page selection would shift every page
+            DocumentHandlePool.Handle handle = documentPool.borrow();
+            int pageCount = handle.getDocument().getNumberOfPages();
+            documentPool.release(handle);
+            if (pageCount != repairedPdf.getExpectedPageCount()) {
+                throw new IOException("Repaired copy has " + pageCount + " page(s), expected "
+                        + repairedPdf.getExpectedPageCount());
             }
         }
+
+        System.out.println("  Retrying " + failedPages.size() + " failed page(s) only...");
+
+        try {
+            renderPages(documentPool, repairedPdf, failedPages, options, maxScale, outputDir, strategy, source, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversion interrupted", e);
+        }
+
+        List<PageResult> stillFailing = getFailedPages(failedPages);
+        int recovered = failedPages.size() - stillFailing.size();
+        if (recovered > 0) {
+            System.out.println("  ✓ Recovered " + recovered + " of " + failedPages.size() + " pages");
+        }
+
+        return stillFailing;
     }
 }
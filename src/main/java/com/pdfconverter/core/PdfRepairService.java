@@ -4,15 +4,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
-import java.io.BufferedReader;
+import jakarta.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
- * Service for repairing problematic PDF files using external tools.
- * Supports QPDF for fast repairs and Ghostscript for comprehensive fixes.
+ * Service for repairing problematic PDF files.
+ * Structural damage is first repaired in process with PDFBox; QPDF is used for
+ * fast repairs and Ghostscript for comprehensive fixes.
+ * Tools run on a bounded repair executor; Ghostscript repairs can use a pool
+ * of persistent interpreters instead of starting Ghostscript each time.
  */
 @Service
 public class PdfRepairService {
@@ -29,14 +38,45 @@ public class PdfRepairService {
     @Value("${app.repair.timeout-seconds:300}")
     private int timeoutSeconds;
 
+    @Value("${app.repair.page-subset:true}")
+    private boolean pageSubsetRepair;
+
+    @Value("${app.repair.speculative.enabled:false}")
+    private boolean speculativeRepair;
+
+    @Value("${app.repair.speculative.min-failed-pages:2}")
+    private int speculativeMinFailedPages;
+
+    @Value("${app.repair.max-concurrent:0}")
+    private int maxConcurrent;
+
+    @Value("${app.repair.nice:10}")
+    private int niceLevel;
+
+    @Value("${app.repair.ghostscript.workers:0}")
+    private int ghostscriptWorkers;
+
+    @Value("${app.repair.in-process.enabled:true}")
+    private boolean inProcessRepair;
+
+    @Value("${app.repair.in-process.max-size-mb:200}")
+    private long inProcessMaxSizeMb;
+
     private boolean qpdfAvailable = false;
     private boolean ghostscriptAvailable = false;
+    private RepairExecutor executor;
+    private GhostscriptWorkerPool ghostscriptPool;
+
+    private final AtomicLong inProcessRepairs = new AtomicLong();
+    private final AtomicLong inProcessPagesRecovered = new AtomicLong();
+    private final AtomicLong inProcessForksSaved = new AtomicLong();
 
     /**
      * Check availability of repair tools on startup.
      */
     @PostConstruct
     public void checkToolAvailability() {
+        executor = new RepairExecutor(maxConcurrent, niceLevel);
         if (!repairEnabled) {
             System.out.println("PDF repair is disabled");
             return;
@@ -48,10 +88,34 @@ public class PdfRepairService {
         System.out.println("PDF Repair Tools:");
         System.out.println("  QPDF: " + (qpdfAvailable ? "✓ Available" : "✗ Not found"));
         System.out.println("  Ghostscript: " + (ghostscriptAvailable ? "✓ Available" : "✗ Not found"));
+        System.out.println("  In-process (PDFBox): " + (inProcessRepair ? "✓ Enabled" : "✗ Disabled"));
 
         if (!qpdfAvailable && !ghostscriptAvailable) {
             System.out.println("⚠ Warning: No repair tools available. Install QPDF or Ghostscript for better PDF compatibility.");
         }
+
+        if (ghostscriptAvailable && ghostscriptWorkers > 0) {
+            try {
+                ghostscriptPool = new GhostscriptWorkerPool(executor.getCommandPrefix(), ghostscriptPath,
+                        ghostscriptDeviceOptions(), ghostscriptWorkers);
+                System.out.println("  Ghostscript workers: " + ghostscriptWorkers + " pre-started");
+            } catch (IOException e) {
+                System.err.println("Failed to start Ghostscript workers, repairs will start Ghostscript each time: "
+                        + e.getMessage());
+            }
+        }
+        System.out.println("  Repair concurrency: " + executor.getMaxConcurrent());
+    }
+
+    /**
+     * Stops the persistent Ghostscript workers.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (ghostscriptPool != null) {
+            ghostscriptPool.close();
+            ghostscriptPool = null;
+        }
     }
 
     /**
@@ -78,129 +142,342 @@ public class PdfRepairService {
         }
     }
 
+    /**
+     * Repair PDF in process with PDFBox: lenient parsing rebuilds the xref
+     * table and the document is written again, without starting a tool.
+     *
+     * @param pageNumbers 1-based page numbers to keep, or null for the whole document
+     * @return Repaired copy holding only those pages in ascending order, or the whole document
+     */
+    public RepairedPdf repairInProcess(File inputPdf, List<Integer> pageNumbers) throws IOException {
+        if (!inProcessRepair) {
+            throw new IOException("In-process repair is disabled");
+        }
+        if (inputPdf.length() > inProcessMaxSizeMb * 1024 * 1024) {
+            throw new IOException("PDF is too large for in-process repair (" + inputPdf.length() / (1024 * 1024) + "MB)");
+        }
+
+        List<Integer> pages = pageNumbers != null ? sortedPages(pageNumbers) : null;
+        File outputPdf = createTempFile("pdfbox-repaired", ".pdf");
+        try {
+            // Holds a repair slot like the tools, so parsing damaged PDFs cannot starve rendering either
+            executor.execute("PDFBox", () -> {
+                long startTime = System.currentTimeMillis();
+                InProcessRepair.rewrite(inputPdf, outputPdf, pages);
+                long elapsed = System.currentTimeMillis() - startTime;
+                System.out.println("PDFBox repair completed in " + (elapsed / 1000.0) + "s");
+                return null;
+            });
+        } catch (IOException e) {
+            outputPdf.delete();
+            throw e;
+        } finally {
+            inProcessRepairs.incrementAndGet();
+        }
+        return pages != null ? new RepairedPdf(outputPdf, pages) : RepairedPdf.wholeDocument(outputPdf);
+    }
+
+    /**
+     * Records how the in-process repair of one conversion went.
+     *
+     * @param pagesRecovered Pages that rendered from the in-process copy
+     * @param allRecovered   Whether no page was left for QPDF or Ghostscript
+     */
+    public void recordInProcessOutcome(int pagesRecovered, boolean allRecovered) {
+        inProcessPagesRecovered.addAndGet(pagesRecovered);
+        if (allRecovered) {
+            inProcessForksSaved.incrementAndGet();
+        }
+    }
+
     /**
      * Repair PDF using QPDF (fast linearization).
      */
     public File repairWithQpdf(File inputPdf) throws IOException {
+        return repairWithQpdf(inputPdf, (Consumer<Process>) null);
+    }
+
+    private File repairWithQpdf(File inputPdf, Consumer<Process> started) throws IOException {
         if (!qpdfAvailable) {
             throw new IOException("QPDF is not available");
         }
 
         File outputPdf = createTempFile("qpdf-repaired", ".pdf");
 
-        ProcessBuilder pb = new ProcessBuilder(
+        List<String> command = List.of(
             qpdfPath,
             "--linearize",
             inputPdf.getAbsolutePath(),
             outputPdf.getAbsolutePath()
         );
 
-        pb.redirectErrorStream(true);
-        
-        long startTime = System.currentTimeMillis();
-        Process process = pb.start();
-
-        // Capture output for debugging
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-        }
+        runQpdf(command, outputPdf, started);
+        return outputPdf;
+    }
 
-        try {
-            boolean completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            
-            if (!completed) {
-                process.destroyForcibly();
-                throw new IOException("QPDF repair timed out after " + timeoutSeconds + " seconds");
-            }
+    /**
+     * Repair only the given pages with QPDF: they are extracted into a small
+     * PDF ("qpdf in.pdf --pages . 2,5,8 -- out.pdf"), so the work scales with
+     * the number of failing pages instead of the document size.
+     *
+     * @param pageNumbers 1-based page numbers to extract
+     * @return Repaired copy holding only those pages, in ascending order
+     */
+    public RepairedPdf repairPagesWithQpdf(File inputPdf, List<Integer> pageNumbers) throws IOException {
+        return repairPagesWithQpdf(inputPdf, pageNumbers, null);
+    }
 
-            if (process.exitValue() != 0) {
-                throw new IOException("QPDF repair failed: " + output.toString());
-            }
+    private RepairedPdf repairPagesWithQpdf(File inputPdf, List<Integer> pageNumbers,
+                                            Consumer<Process> started) throws IOException {
+        if (!qpdfAvailable) {
+            throw new IOException("QPDF is not available");
+        }
 
-            long elapsed = System.currentTimeMillis() - startTime;
-            System.out.println("QPDF repair completed in " + (elapsed / 1000.0) + "s");
+        List<Integer> pages = sortedPages(pageNumbers);
+        File outputPdf = createTempFile("qpdf-repaired", ".pdf");
 
-            return outputPdf;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("QPDF repair was interrupted", e);
-        }
+        List<String> command = List.of(
+            qpdfPath,
+            inputPdf.getAbsolutePath(),
+            "--pages",
+            ".",
+            toPageList(pages),
+            "--",
+            outputPdf.getAbsolutePath()
+        );
+
+        runQpdf(command, outputPdf, started);
+        return new RepairedPdf(outputPdf, pages);
     }
 
     /**
      * Repair PDF using Ghostscript (comprehensive repair with quality preservation).
      */
     public File repairWithGhostscript(File inputPdf) throws IOException {
+        return repairWithGhostscript(inputPdf, (Consumer<Process>) null);
+    }
+
+    private File repairWithGhostscript(File inputPdf, Consumer<Process> started) throws IOException {
         if (!ghostscriptAvailable) {
             throw new IOException("Ghostscript is not available");
         }
 
         File outputPdf = createTempFile("gs-repaired", ".pdf");
+        runGhostscript(inputPdf, outputPdf, List.of(), List.of(), started);
+        return outputPdf;
+    }
 
-        ProcessBuilder pb = new ProcessBuilder(
+    /**
+     * Repair only the given pages with Ghostscript. A contiguous run is selected
+     * with -dFirstPage/-dLastPage, scattered pages with -sPageList, so only
+     * those pages are interpreted and rewritten.
+     *
+     * @param pageNumbers 1-based page numbers to rewrite
+     * @return Repaired copy holding only those pages, in ascending order
+     */
+    public RepairedPdf repairPagesWithGhostscript(File inputPdf, List<Integer> pageNumbers) throws IOException {
+        return repairPagesWithGhostscript(inputPdf, pageNumbers, null);
+    }
+
+    private RepairedPdf repairPagesWithGhostscript(File inputPdf, List<Integer> pageNumbers,
+                                                   Consumer<Process> started) throws IOException {
+        if (!ghostscriptAvailable) {
+            throw new IOException("Ghostscript is not available");
+        }
+
+        List<Integer> pages = sortedPages(pageNumbers);
+        List<String> pageOptions = new ArrayList<>();
+        int first = pages.get(0);
+        int last = pages.get(pages.size() - 1);
+        if (last - first + 1 == pages.size()) {
+            pageOptions.add("-dFirstPage=" + first);
+            pageOptions.add("-dLastPage=" + last);
+        } else {
+            pageOptions.add("-sPageList=" + toPageList(pages));
+        }
+
+        File outputPdf = createTempFile("gs-repaired", ".pdf");
+        runGhostscript(inputPdf, outputPdf, pageOptions, toPageRanges(pages), started);
+        return new RepairedPdf(outputPdf, pages);
+    }
+
+    /**
+     * Starts QPDF and Ghostscript concurrently on the same pages, under one
+     * shared timeout. Closing the returned race destroys whichever tool is
+     * still running.
+     *
+     * @param pageNumbers 1-based page numbers to repair (the whole document is
+     *                    repaired if page-subset repair is off)
+     */
+    public SpeculativeRepair startSpeculativeRepair(File inputPdf, List<Integer> pageNumbers) {
+        SpeculativeRepair race = new SpeculativeRepair(timeoutSeconds);
+        race.start(PageResult.STRATEGY_QPDF, started -> repair(PageResult.STRATEGY_QPDF, inputPdf, pageNumbers, started));
+        race.start(PageResult.STRATEGY_GHOSTSCRIPT,
+                started -> repair(PageResult.STRATEGY_GHOSTSCRIPT, inputPdf, pageNumbers, started));
+        return race;
+    }
+
+    /**
+     * Repairs the given pages with one tool, or the whole document if page-subset repair is off.
+     * The caller owns the repaired file and deletes it when done.
+     *
+     * @param strategy    PageResult.STRATEGY_IN_PROCESS, STRATEGY_QPDF or STRATEGY_GHOSTSCRIPT
+     * @param pageNumbers 1-based page numbers to repair, or null for the whole document
+     */
+    public RepairedPdf repair(String strategy, File inputPdf, List<Integer> pageNumbers) throws IOException {
+        return repair(strategy, inputPdf, pageNumbers, null);
+    }
+
+    private RepairedPdf repair(String strategy, File inputPdf, List<Integer> pageNumbers,
+                               Consumer<Process> started) throws IOException {
+        boolean subset = pageSubsetRepair && pageNumbers != null;
+        if (PageResult.STRATEGY_IN_PROCESS.equals(strategy)) {
+            return repairInProcess(inputPdf, subset ? pageNumbers : null);
+        }
+        if (PageResult.STRATEGY_QPDF.equals(strategy)) {
+            return subset
+                    ? repairPagesWithQpdf(inputPdf, pageNumbers, started)
+                    : RepairedPdf.wholeDocument(repairWithQpdf(inputPdf, started));
+        }
+        if (PageResult.STRATEGY_GHOSTSCRIPT.equals(strategy)) {
+            return subset
+                    ? repairPagesWithGhostscript(inputPdf, pageNumbers, started)
+                    : RepairedPdf.wholeDocument(repairWithGhostscript(inputPdf, started));
+        }
+        throw new IllegalArgumentException("Unknown repair strategy: " + strategy);
+    }
+
+    /**
+     * Runs QPDF; the output file is deleted if it fails.
+     */
+    private void runQpdf(List<String> command, File outputPdf, Consumer<Process> started) throws IOException {
+        try {
+            executor.runProcess("QPDF", command, timeoutSeconds, started);
+        } catch (IOException e) {
+            outputPdf.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Runs Ghostscript on a pooled worker if available, otherwise as a new process.
+     * A job the worker's interpreter rejects is retried once as a new process,
+     * which also covers Ghostscript builds without the PDF scripting procedures.
+     * The output file is deleted if the repair fails.
+     *
+     * @param pageOptions Page selection for a new process
+     * @param pageRanges  The same selection as ranges for a pooled worker (empty = all pages)
+     */
+    private void runGhostscript(File inputPdf, File outputPdf, List<String> pageOptions, List<int[]> pageRanges,
+                                Consumer<Process> started) throws IOException {
+        try {
+            dispatchGhostscript(inputPdf, outputPdf, pageOptions, pageRanges, started);
+        } catch (IOException e) {
+            outputPdf.delete();
+            throw e;
+        }
+    }
+
+    private void dispatchGhostscript(File inputPdf, File outputPdf, List<String> pageOptions, List<int[]> pageRanges,
+                                     Consumer<Process> started) throws IOException {
+        GhostscriptWorkerPool pool = ghostscriptPool;
+        if (pool != null) {
+            long startTime = System.currentTimeMillis();
+            boolean repaired = executor.execute("Ghostscript",
+                    () -> pool.repair(inputPdf, outputPdf, pageRanges, timeoutSeconds, started));
+            if (repaired) {
+                long elapsed = System.currentTimeMillis() - startTime;
+                System.out.println("Ghostscript repair completed in " + (elapsed / 1000.0) + "s (pooled worker)");
+                return;
+            }
+            System.err.println("Ghostscript worker could not repair " + inputPdf.getName() + ", retrying as a new process");
+        }
+        executor.runProcess("Ghostscript", ghostscriptCommand(inputPdf, outputPdf, pageOptions), timeoutSeconds, started);
+    }
+
+    private List<String> ghostscriptCommand(File inputPdf, File outputPdf, List<String> pageOptions) {
+        List<String> command = new ArrayList<>(List.of(
             ghostscriptPath,
             "-sDEVICE=pdfwrite",
             "-dNOPAUSE",
             "-dBATCH",
-            "-dSAFER",
+            "-dSAFER"
+        ));
+        command.addAll(ghostscriptDeviceOptions());
+        command.addAll(pageOptions);
+        command.add("-sOutputFile=" + outputPdf.getAbsolutePath());
+        command.add(inputPdf.getAbsolutePath());
+        return command;
+    }
+
+    /**
+     * pdfwrite options shared by one-shot runs and pooled workers.
+     */
+    private static List<String> ghostscriptDeviceOptions() {
+        return List.of(
             "-dPDFSETTINGS=/prepress",  // Maximum quality - no downsampling
             "-dColorConversionStrategy=/LeaveColorUnchanged",  // Preserve colors
             "-dDownsampleMonoImages=false",  // No downsampling
             "-dDownsampleGrayImages=false",
             "-dDownsampleColorImages=false",
             "-dAutoFilterColorImages=false",
-            "-dAutoFilterGrayImages=false",
-            "-sOutputFile=" + outputPdf.getAbsolutePath(),
-            inputPdf.getAbsolutePath()
+            "-dAutoFilterGrayImages=false"
         );
+    }
 
-        pb.redirectErrorStream(true);
-        
-        long startTime = System.currentTimeMillis();
-        Process process = pb.start();
-
-        // Capture output for debugging
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
+    private static List<Integer> sortedPages(List<Integer> pageNumbers) {
+        if (pageNumbers.isEmpty()) {
+            throw new IllegalArgumentException("No pages to repair");
         }
+        return new ArrayList<>(new TreeSet<>(pageNumbers));
+    }
 
-        try {
-            boolean completed = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            
-            if (!completed) {
-                process.destroyForcibly();
-                throw new IOException("Ghostscript repair timed out after " + timeoutSeconds + " seconds");
+    /**
+     * Contiguous [first, last] runs of sorted page numbers.
+     */
+    private static List<int[]> toPageRanges(List<Integer> sortedPages) {
+        List<int[]> ranges = new ArrayList<>();
+        for (int page : sortedPages) {
+            int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+            if (last != null && last[1] == page - 1) {
+                last[1] = page;
+            } else {
+                ranges.add(new int[]{page, page});
             }
+        }
+        return ranges;
+    }
 
-            if (process.exitValue() != 0) {
-                throw new IOException("Ghostscript repair failed: " + output.toString());
+    /**
+     * Page list in the "1-3,7" syntax understood by both QPDF and Ghostscript.
+     */
+    static String toPageList(List<Integer> sortedPages) {
+        StringBuilder list = new StringBuilder();
+        int i = 0;
+        while (i < sortedPages.size()) {
+            int start = sortedPages.get(i);
+            int end = start;
+            while (i + 1 < sortedPages.size() && sortedPages.get(i + 1) == end + 1) {
+                end = sortedPages.get(++i);
             }
-
-            long elapsed = System.currentTimeMillis() - startTime;
-            System.out.println("Ghostscript repair completed in " + (elapsed / 1000.0) + "s");
-
-            return outputPdf;
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Ghostscript repair was interrupted", e);
+            if (list.length() > 0) {
+                list.append(',');
+            }
+            list.append(start);
+            if (end > start) {
+                list.append('-').append(end);
+            }
+            i++;
         }
+        return list.toString();
     }
 
     /**
-     * Create a temporary file for repair output.
+     * Create a temporary file for repair output. It is deleted if the repair
+     * fails; otherwise the caller deletes it (see ConversionSession#deleteOnClose).
      */
     private File createTempFile(String prefix, String suffix) throws IOException {
-        File tempFile = File.createTempFile(prefix, suffix);
-        tempFile.deleteOnExit();
-        return tempFile;
+        return File.createTempFile(prefix, suffix);
     }
 
     // Getters for availability checks
@@ -216,7 +493,44 @@ public class PdfRepairService {
         return ghostscriptAvailable;
     }
 
+    /**
+     * Whether damaged PDFs are first repaired in process with PDFBox.
+     */
+    public boolean isInProcessRepairEnabled() {
+        return repairEnabled && inProcessRepair;
+    }
+
+    /**
+     * Whether only the failing pages are repaired, instead of the whole document.
+     */
+    public boolean isPageSubsetRepair() {
+        return pageSubsetRepair;
+    }
+
+    /**
+     * Whether QPDF and Ghostscript should race each other for this many failed pages.
+     */
+    public boolean shouldRepairSpeculatively(int failedPageCount) {
+        return speculativeRepair && qpdfAvailable && ghostscriptAvailable
+                && failedPageCount >= speculativeMinFailedPages;
+    }
+
     public boolean isAnyRepairAvailable() {
-        return repairEnabled && (qpdfAvailable || ghostscriptAvailable);
+        return repairEnabled && (inProcessRepair || qpdfAvailable || ghostscriptAvailable);
+    }
+
+    /**
+     * Repair queue and execution statistics for the health endpoint.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>(executor != null ? executor.getMetrics() : Map.of());
+        GhostscriptWorkerPool pool = ghostscriptPool;
+        metrics.put("ghostscriptWorkers", pool != null ? pool.getIdleWorkers() : 0);
+        metrics.put("pooledGhostscriptJobs", pool != null ? pool.getJobsRun() : 0L);
+        metrics.put("inProcessRepairs", inProcessRepairs.get());
+        metrics.put("inProcessPagesRecovered", inProcessPagesRecovered.get());
+        // Conversions that needed no QPDF or Ghostscript process after the in-process repair
+        metrics.put("inProcessForksSaved", inProcessForksSaved.get());
+        return metrics;
     }
 }
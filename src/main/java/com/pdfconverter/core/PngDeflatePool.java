@@ -0,0 +1,54 @@
+package com.pdfconverter.core;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper threads for PngEncoder's parallel deflate, shared by every encode.
+ * The pool is bounded (default: half the CPU cores) and one image uses at most
+ * max-parallel-per-image threads including the render thread encoding it, so
+ * pages encoded on every render thread at once add only this pool's threads
+ * on top of the render scheduler. The pool is installed into PngEncoder on
+ * startup and shut down with the application context.
+ */
+@Service
+public class PngDeflatePool {
+
+    @Value("${app.png.deflate-threads:0}")
+    private int configuredThreads;
+
+    @Value("${app.png.max-parallel-per-image:4}")
+    private int maxParallelPerImage;
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void start() {
+        int threads = configuredThreads > 0
+                ? configuredThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "png-deflate-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        PngEncoder.setDeflateExecutor(executor, maxParallelPerImage);
+
+        System.out.println("PNG deflate pool: " + threads + " thread(s), up to " + maxParallelPerImage
+                + " per image");
+    }
+
+    @PreDestroy
+    public void stop() {
+        PngEncoder.setDeflateExecutor(null, 1);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,669 @@
+package com.pdfconverter.core;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * PNG encoder tuned for rendered pages.
+ *
+ * - Monochrome pages are reduced to 1-bit or 8-bit grayscale, and pages with
+ *   at most 256 colors to a palette, before anything is compressed.
+ * - Each scanline gets a fixed filter or the adaptive (minimum sum of
+ *   absolute differences) heuristic.
+ * - Large rasters are split into row chunks that are filtered and deflated
+ *   in parallel, pigz-style: every chunk is primed with the last 32 KB of the
+ *   previous one and ends on a sync flush, so the chunks concatenate into a
+ *   single zlib stream whose Adler-32 is combined from the chunk checksums.
+ *   The encoding thread works through the chunks itself, helped by at most
+ *   maxParallel - 1 threads of the shared deflate pool (see PngDeflatePool);
+ *   without a pool, chunks are encoded one after another.
+ */
+public class PngEncoder implements ImageEncoder {
+
+    public static final int FILTER_NONE = 0;
+    public static final int FILTER_SUB = 1;
+    public static final int FILTER_UP = 2;
+    public static final int FILTER_AVERAGE = 3;
+    public static final int FILTER_PAETH = 4;
+    public static final int FILTER_ADAPTIVE = -1;
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+    private static final int COLOR_GRAY = 0;
+    private static final int COLOR_RGB = 2;
+    private static final int COLOR_PALETTE = 3;
+    private static final int COLOR_RGBA = 6;
+
+    private static final int CHUNK_BYTES = 256 * 1024;
+    private static final int PARALLEL_MIN_BYTES = 1024 * 1024;
+    private static final int DICTIONARY_BYTES = 32 * 1024;
+    private static final int ADLER_BASE = 65521;
+
+    private static volatile ExecutorService deflateExecutor;
+    private static volatile int maxParallel = 1;
+
+    /**
+     * Pixel layout chosen for the output file.
+     */
+    private static class Layout {
+        int colorType;
+        int bitDepth;
+        int[] palette;
+        PaletteIndex paletteIndex;
+
+        int bitsPerPixel() {
+            int channels = switch (colorType) {
+                case COLOR_RGB -> 3;
+                case COLOR_RGBA -> 4;
+                default -> 1;
+            };
+            return channels * bitDepth;
+        }
+    }
+
+    @Override
+    public void encode(BufferedImage image, OutputStream outputStream, EncoderSettings settings) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        Layout layout = analyze(image, settings.isReduceColors());
+
+        int rowBytes = (width * layout.bitsPerPixel() + 7) / 8;
+        int filter = parseFilter(settings.getPngFilter());
+        if (filter == FILTER_ADAPTIVE && settings.getPngFilter() == null
+                && (layout.colorType == COLOR_PALETTE || layout.bitDepth < 8)) {
+            // Filters rarely help indexed or sub-byte data (PNG spec, section 12.8)
+            filter = FILTER_NONE;
+        }
+        int level = settings.getCompressionLevel() >= 0 ? Math.min(settings.getCompressionLevel(), 9) : 6;
+        int strategy = parseStrategy(settings.getDeflateStrategy(), filter);
+
+        ExecutorService executor = deflateExecutor;
+        int parallelism = executor != null ? maxParallel : 1;
+
+        // Split the rows into chunks of roughly CHUNK_BYTES of filtered data
+        long filteredBytes = (long) height * (rowBytes + 1);
+        int rowsPerChunk = filteredBytes >= PARALLEL_MIN_BYTES && parallelism > 1
+                ? Math.max(1, CHUNK_BYTES / (rowBytes + 1))
+                : height;
+        List<int[]> rowRanges = new ArrayList<>();
+        for (int y = 0; y < height; y += rowsPerChunk) {
+            rowRanges.add(new int[]{y, Math.min(height, y + rowsPerChunk)});
+        }
+
+        List<byte[]> compressed = new ArrayList<>(rowRanges.size());
+        List<Long> checksums = new ArrayList<>(rowRanges.size());
+        List<Integer> lengths = new ArrayList<>(rowRanges.size());
+        int finalFilter = filter;
+
+        if (rowRanges.size() == 1) {
+            byte[] filtered = filterRows(image, layout, rowBytes, finalFilter, 0, height);
+            compressed.add(deflate(filtered, null, true, level, strategy));
+            checksums.add(adler32(filtered));
+            lengths.add(filtered.length);
+        } else {
+            int chunks = rowRanges.size();
+            byte[][] filtered = new byte[chunks][];
+            byte[][] deflated = new byte[chunks][];
+            runChunks(executor, parallelism, chunks, i -> filtered[i] = filterRows(
+                    image, layout, rowBytes, finalFilter, rowRanges.get(i)[0], rowRanges.get(i)[1]));
+            runChunks(executor, parallelism, chunks, i -> deflated[i] = deflate(
+                    filtered[i], i > 0 ? filtered[i - 1] : null, i == chunks - 1, level, strategy));
+
+            for (int i = 0; i < chunks; i++) {
+                compressed.add(deflated[i]);
+                checksums.add(adler32(filtered[i]));
+                lengths.add(filtered[i].length);
+            }
+        }
+
+        long adler = checksums.get(0);
+        for (int i = 1; i < checksums.size(); i++) {
+            adler = combineAdler32(adler, checksums.get(i), lengths.get(i));
+        }
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.write(SIGNATURE);
+        writeHeader(out, width, height, layout);
+        if (layout.colorType == COLOR_PALETTE) {
+            writePalette(out, layout.palette);
+        }
+        for (int i = 0; i < compressed.size(); i++) {
+            byte[] prefix = i == 0 ? zlibHeader(level) : new byte[0];
+            byte[] suffix = i == compressed.size() - 1 ? intBytes((int) adler) : new byte[0];
+            writeChunk(out, "IDAT", prefix, compressed.get(i), suffix);
+        }
+        writeChunk(out, "IEND", new byte[0], new byte[0], new byte[0]);
+        out.flush();
+    }
+
+    /**
+     * Parses a filter name: none, sub, up, average, paeth or adaptive (null/"auto").
+     */
+    public static int parseFilter(String name) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("auto") || name.equalsIgnoreCase("adaptive")) {
+            return FILTER_ADAPTIVE;
+        }
+        return switch (name.toLowerCase()) {
+            case "none" -> FILTER_NONE;
+            case "sub" -> FILTER_SUB;
+            case "up" -> FILTER_UP;
+            case "average" -> FILTER_AVERAGE;
+            case "paeth" -> FILTER_PAETH;
+            default -> throw new IllegalArgumentException("Unknown PNG filter: " + name);
+        };
+    }
+
+    /**
+     * Parses a deflate strategy name: default, filtered or huffman.
+     * Null or "auto" picks filtered for filtered rows and default otherwise, like libpng.
+     */
+    public static int parseStrategy(String name, int filter) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("auto")) {
+            return filter == FILTER_NONE ? Deflater.DEFAULT_STRATEGY : Deflater.FILTERED;
+        }
+        return switch (name.toLowerCase()) {
+            case "default" -> Deflater.DEFAULT_STRATEGY;
+            case "filtered" -> Deflater.FILTERED;
+            case "huffman" -> Deflater.HUFFMAN_ONLY;
+            default -> throw new IllegalArgumentException("Unknown deflate strategy: " + name);
+        };
+    }
+
+    /**
+     * Picks the smallest lossless layout: 1-bit gray, 8-bit gray, palette or RGB(A).
+     */
+    private static Layout analyze(BufferedImage image, boolean reduceColors) {
+        Layout layout = new Layout();
+        layout.bitDepth = 8;
+        if (image.getColorModel().hasAlpha()) {
+            layout.colorType = COLOR_RGBA;
+            return layout;
+        }
+        layout.colorType = COLOR_RGB;
+        if (!reduceColors) {
+            return layout;
+        }
+
+        int width = image.getWidth();
+        int[] row = new int[width];
+        boolean gray = true;
+        boolean bilevel = true;
+        PaletteIndex colors = new PaletteIndex();
+
+        for (int y = 0; y < image.getHeight() && (gray || colors != null); y++) {
+            readRow(image, y, row);
+            for (int x = 0; x < width; x++) {
+                int rgb = row[x] & 0xFFFFFF;
+                if (gray) {
+                    int r = rgb >>> 16;
+                    if (r != ((rgb >>> 8) & 0xFF) || r != (rgb & 0xFF)) {
+                        gray = false;
+                        bilevel = false;
+                    } else if (r != 0 && r != 255) {
+                        bilevel = false;
+                    }
+                }
+                if (colors != null && colors.add(rgb) < 0) {
+                    colors = null;
+                }
+                if (!gray && colors == null) {
+                    break;
+                }
+            }
+        }
+
+        if (bilevel) {
+            layout.colorType = COLOR_GRAY;
+            layout.bitDepth = 1;
+        } else if (colors != null && !(gray && colors.size() > 16)) {
+            // Small palettes beat 8-bit gray; larger gray ramps compress as well without the PLTE
+            layout.colorType = COLOR_PALETTE;
+            layout.palette = colors.entries();
+            layout.paletteIndex = colors;
+            int count = colors.size();
+            layout.bitDepth = count <= 2 ? 1 : count <= 4 ? 2 : count <= 16 ? 4 : 8;
+        } else if (gray) {
+            layout.colorType = COLOR_GRAY;
+        }
+        return layout;
+    }
+
+    /**
+     * Converts rows [startRow, endRow) to the output layout and filters them.
+     * Each row is prefixed with its filter type byte.
+     */
+    private static byte[] filterRows(BufferedImage image, Layout layout, int rowBytes, int filter,
+                                     int startRow, int endRow) {
+        int bpp = Math.max(1, layout.bitsPerPixel() / 8);
+        int[] pixels = new int[image.getWidth()];
+        byte[] previous = new byte[rowBytes];
+        byte[] current = new byte[rowBytes];
+        byte[][] candidates = filter == FILTER_ADAPTIVE ? new byte[5][rowBytes] : null;
+        byte[] out = new byte[(endRow - startRow) * (rowBytes + 1)];
+
+        if (startRow > 0) {
+            readRow(image, startRow - 1, pixels);
+            packRow(pixels, layout, previous);
+        }
+
+        int offset = 0;
+        for (int y = startRow; y < endRow; y++) {
+            readRow(image, y, pixels);
+            packRow(pixels, layout, current);
+
+            if (filter == FILTER_ADAPTIVE) {
+                int best = 0;
+                long bestScore = Long.MAX_VALUE;
+                for (int type = 0; type < 5; type++) {
+                    applyFilter(type, current, previous, bpp, candidates[type], 0);
+                    long score = 0;
+                    for (byte b : candidates[type]) {
+                        score += Math.abs((int) b);
+                    }
+                    if (score < bestScore) {
+                        bestScore = score;
+                        best = type;
+                    }
+                }
+                out[offset] = (byte) best;
+                System.arraycopy(candidates[best], 0, out, offset + 1, rowBytes);
+            } else {
+                out[offset] = (byte) filter;
+                applyFilter(filter, current, previous, bpp, out, offset + 1);
+            }
+            offset += rowBytes + 1;
+
+            byte[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return out;
+    }
+
+    private static void applyFilter(int type, byte[] row, byte[] prior, int bpp, byte[] out, int offset) {
+        int length = row.length;
+        switch (type) {
+            case FILTER_NONE -> System.arraycopy(row, 0, out, offset, length);
+            case FILTER_SUB -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    out[offset + i] = (byte) ((row[i] & 0xFF) - left);
+                }
+            }
+            case FILTER_UP -> {
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = (byte) ((row[i] & 0xFF) - (prior[i] & 0xFF));
+                }
+            }
+            case FILTER_AVERAGE -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    out[offset + i] = (byte) ((row[i] & 0xFF) - ((left + (prior[i] & 0xFF)) >>> 1));
+                }
+            }
+            default -> {
+                for (int i = 0; i < length; i++) {
+                    int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+                    int up = prior[i] & 0xFF;
+                    int upLeft = i >= bpp ? prior[i - bpp] & 0xFF : 0;
+                    out[offset + i] = (byte) ((row[i] & 0xFF) - paeth(left, up, upLeft));
+                }
+            }
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * Packs ARGB pixels into raw scanline bytes for the layout.
+     */
+    private static void packRow(int[] pixels, Layout layout, byte[] out) {
+        switch (layout.colorType) {
+            case COLOR_RGB -> {
+                for (int x = 0, i = 0; x < pixels.length; x++) {
+                    int p = pixels[x];
+                    out[i++] = (byte) (p >>> 16);
+                    out[i++] = (byte) (p >>> 8);
+                    out[i++] = (byte) p;
+                }
+            }
+            case COLOR_RGBA -> {
+                for (int x = 0, i = 0; x < pixels.length; x++) {
+                    int p = pixels[x];
+                    out[i++] = (byte) (p >>> 16);
+                    out[i++] = (byte) (p >>> 8);
+                    out[i++] = (byte) p;
+                    out[i++] = (byte) (p >>> 24);
+                }
+            }
+            case COLOR_GRAY -> {
+                if (layout.bitDepth == 8) {
+                    for (int x = 0; x < pixels.length; x++) {
+                        out[x] = (byte) pixels[x];
+                    }
+                } else {
+                    packSamples(pixels, out, 1, p -> (p & 0xFF) >>> 7);
+                }
+            }
+            default -> packSamples(pixels, out, layout.bitDepth,
+                    p -> layout.paletteIndex.indexOf(p & 0xFFFFFF));
+        }
+    }
+
+    private interface SampleFunction {
+        int apply(int pixel);
+    }
+
+    private static void packSamples(int[] pixels, byte[] out, int bitDepth, SampleFunction sample) {
+        if (bitDepth == 8) {
+            for (int x = 0; x < pixels.length; x++) {
+                out[x] = (byte) sample.apply(pixels[x]);
+            }
+            return;
+        }
+        Arrays.fill(out, (byte) 0);
+        int perByte = 8 / bitDepth;
+        for (int x = 0; x < pixels.length; x++) {
+            int shift = 8 - bitDepth * (x % perByte + 1);
+            out[x / perByte] |= (byte) (sample.apply(pixels[x]) << shift);
+        }
+    }
+
+    /**
+     * Reads one row of ARGB pixels, straight from the backing array for INT rasters.
+     */
+    private static void readRow(BufferedImage image, int y, int[] row) {
+        int type = image.getType();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt dataBuffer
+                && image.getSampleModel() instanceof SinglePixelPackedSampleModel sampleModel
+                && image.getRaster().getParent() == null) {
+            int offset = dataBuffer.getOffset() + y * sampleModel.getScanlineStride();
+            System.arraycopy(dataBuffer.getData(), offset, row, 0, row.length);
+        } else if (type == BufferedImage.TYPE_BYTE_GRAY) {
+            // Raw samples: getRGB would treat them as linear gray and brighten them
+            image.getRaster().getSamples(0, y, row.length, 1, 0, row);
+            for (int x = 0; x < row.length; x++) {
+                row[x] = 0xFF000000 | row[x] * 0x010101;
+            }
+        } else {
+            image.getRGB(0, y, row.length, 1, row, 0, row.length);
+        }
+    }
+
+    private static byte[] deflate(byte[] data, byte[] dictionary, boolean last, int level, int strategy) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setStrategy(strategy);
+            if (dictionary != null) {
+                int length = Math.min(DICTIONARY_BYTES, dictionary.length);
+                deflater.setDictionary(dictionary, dictionary.length - length, length);
+            }
+            deflater.setInput(data);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    out.write(buffer, 0, count);
+                }
+            } else {
+                // Sync flush ends the chunk on a byte boundary so the next chunk can follow it.
+                // The first call may only apply the strategy, so also loop until the input is used up.
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, count);
+                } while (count == buffer.length || !deflater.needsInput());
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long adler32(byte[] data) {
+        Adler32 adler = new Adler32();
+        adler.update(data);
+        return adler.getValue();
+    }
+
+    /**
+     * Checksum of two concatenated blocks from their checksums (zlib's adler32_combine).
+     */
+    static long combineAdler32(long adler1, long adler2, long length2) {
+        long remainder = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= (ADLER_BASE << 1)) {
+            sum2 -= (ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+
+    private static byte[] zlibHeader(int level) {
+        // CMF 0x78: deflate with a 32K window; FLG encodes the level and the check bits
+        int flags = level <= 1 ? 0x01 : level <= 5 ? 0x5E : level == 6 ? 0x9C : 0xDA;
+        return new byte[]{0x78, (byte) flags};
+    }
+
+    private static void writeHeader(DataOutputStream out, int width, int height, Layout layout)
+            throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeByte(layout.bitDepth);
+        data.writeByte(layout.colorType);
+        data.writeByte(0); // deflate
+        data.writeByte(0); // adaptive filtering
+        data.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray(), new byte[0], new byte[0]);
+    }
+
+    private static void writePalette(DataOutputStream out, int[] palette) throws IOException {
+        byte[] entries = new byte[palette.length * 3];
+        for (int i = 0; i < palette.length; i++) {
+            entries[i * 3] = (byte) (palette[i] >>> 16);
+            entries[i * 3 + 1] = (byte) (palette[i] >>> 8);
+            entries[i * 3 + 2] = (byte) palette[i];
+        }
+        writeChunk(out, "PLTE", entries, new byte[0], new byte[0]);
+    }
+
+    /**
+     * Writes a chunk whose data is prefix + body + suffix, without copying them together.
+     */
+    private static void writeChunk(DataOutputStream out, String type, byte[] prefix, byte[] body, byte[] suffix)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(prefix);
+        crc.update(body);
+        crc.update(suffix);
+
+        out.writeInt(prefix.length + body.length + suffix.length);
+        out.write(typeBytes);
+        out.write(prefix);
+        out.write(body);
+        out.write(suffix);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    /**
+     * Installs the pool whose threads help encode large images, or removes it (null).
+     *
+     * @param executor    Shared helper threads
+     * @param parallelism Threads working on one image at most, including the encoding thread
+     */
+    public static void setDeflateExecutor(ExecutorService executor, int parallelism) {
+        maxParallel = Math.max(1, parallelism);
+        deflateExecutor = executor;
+    }
+
+    /**
+     * Runs work for chunk indices 0 to count - 1 on the calling thread and up
+     * to parallelism - 1 helpers from the pool; each thread takes the next
+     * unclaimed index. Helpers that have not started by the time the caller
+     * runs out of work are cancelled, so a busy pool never delays the encode.
+     */
+    private static void runChunks(ExecutorService executor, int parallelism, int count, IntConsumer work)
+            throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while ((index = next.getAndIncrement()) < count) {
+                work.accept(index);
+            }
+        };
+
+        // A helper runs only if it claims its flag before the caller revokes it
+        List<Future<?>> helpers = new ArrayList<>();
+        List<AtomicBoolean> claims = new ArrayList<>();
+        try {
+            for (int i = 1; i < Math.min(parallelism, count); i++) {
+                AtomicBoolean claim = new AtomicBoolean();
+                helpers.add(executor.submit(() -> {
+                    if (claim.compareAndSet(false, true)) {
+                        worker.run();
+                    }
+                }));
+                claims.add(claim);
+            }
+        } catch (RejectedExecutionException e) {
+            // Pool shut down: the caller does the rest
+        }
+
+        Throwable failure = null;
+        try {
+            worker.run();
+        } catch (RuntimeException | Error e) {
+            next.set(count);
+            failure = e;
+        }
+
+        for (int i = 0; i < helpers.size(); i++) {
+            if (claims.get(i).compareAndSet(false, true)) {
+                // Not started yet: it will do nothing
+                helpers.get(i).cancel(false);
+                continue;
+            }
+            try {
+                helpers.get(i).get();
+            } catch (ExecutionException e) {
+                next.set(count);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                next.set(count);
+                Thread.currentThread().interrupt();
+                throw new IOException("PNG encoding interrupted", e);
+            }
+        }
+
+        if (failure != null) {
+            throw new IOException("PNG encoding failed: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Open-addressing map from RGB value to palette index, capped at 256 colors.
+     * Read-only once analysis is done, so chunk workers can share it.
+     */
+    private static class PaletteIndex {
+        private static final int SLOTS = 1024;
+        private final int[] keys = new int[SLOTS];
+        private final int[] indices = new int[SLOTS];
+        private final int[] entries = new int[256];
+        private int size;
+
+        /**
+         * @return Palette index of the color, or -1 if the palette is full
+         */
+        int add(int rgb) {
+            int slot = find(rgb);
+            if (keys[slot] != 0) {
+                return indices[slot];
+            }
+            if (size == 256) {
+                return -1;
+            }
+            keys[slot] = rgb | 0x1000000;
+            indices[slot] = size;
+            entries[size] = rgb;
+            return size++;
+        }
+
+        int indexOf(int rgb) {
+            return indices[find(rgb)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] entries() {
+            return Arrays.copyOf(entries, size);
+        }
+
+        private int find(int rgb) {
+            int key = rgb | 0x1000000;
+            int slot = (rgb * 0x9E3779B1 >>> 22) & (SLOTS - 1);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & (SLOTS - 1);
+            }
+            return slot;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PngEncoder";
+    }
+}
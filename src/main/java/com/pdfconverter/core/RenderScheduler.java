@@ -0,0 +1,294 @@
+package com.pdfconverter.core;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide page rendering scheduler shared by all conversions.
+ * A fixed set of worker threads, sized to CPU cores and heap, serves page tasks
+ * from every active job. Jobs are interleaved with weighted round-robin, so a
+ * small job is never starved behind one huge PDF.
+ */
+@Service
+public class RenderScheduler {
+
+    @Value("${app.render.threads:0}")
+    private int configuredThreads;
+
+    @Value("${app.render.memory-per-thread-mb:256}")
+    private int memoryPerThreadMb = 256;
+
+    @Value("${app.render.memory-budget-mb:0}")
+    private long memoryBudgetMb;
+
+    private final Object lock = new Object();
+    private final Deque<Batch> activeBatches = new ArrayDeque<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final AtomicInteger busyWorkers = new AtomicInteger(0);
+    private int queuedTasks = 0;
+    private volatile boolean running = false;
+    private MemoryBudget memoryBudget;
+
+    public RenderScheduler() {
+    }
+
+    /**
+     * Creates a scheduler with a fixed number of threads for use outside Spring.
+     * Call {@link #start()} before submitting work.
+     */
+    public RenderScheduler(int threads) {
+        this.configuredThreads = threads;
+    }
+
+    /**
+     * A group of page tasks belonging to one job.
+     */
+    public class Batch {
+        private final String name;
+        private final int weight;
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private int pendingTasks = 0;
+        private int servedThisTurn = 0;
+        private boolean scheduled = false;
+        private boolean cancelled = false;
+
+        private Batch(String name, int weight) {
+            this.name = name;
+            this.weight = Math.max(1, weight);
+        }
+
+        /**
+         * Queues a task for execution on the shared workers.
+         */
+        public void submit(Runnable task) {
+            synchronized (lock) {
+                if (!running) {
+                    throw new IllegalStateException("Render scheduler is not running");
+                }
+                if (cancelled) {
+                    return;
+                }
+                tasks.addLast(task);
+                pendingTasks++;
+                queuedTasks++;
+                if (!scheduled) {
+                    activeBatches.addLast(this);
+                    scheduled = true;
+                }
+                // Workers and awaiting callers share the monitor, so wake everyone
+                lock.notifyAll();
+            }
+        }
+
+        /**
+         * Waits until every submitted task has finished.
+         *
+         * @return true if all tasks finished, false on timeout
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (lock) {
+                while (pendingTasks > 0) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Drops tasks that have not started yet. Running tasks finish normally.
+         */
+        public void cancel() {
+            synchronized (lock) {
+                cancelled = true;
+                queuedTasks -= tasks.size();
+                pendingTasks -= tasks.size();
+                tasks.clear();
+                if (scheduled) {
+                    activeBatches.remove(this);
+                    scheduled = false;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Start the worker threads.
+     */
+    @PostConstruct
+    public void start() {
+        synchronized (lock) {
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+
+        // Default budget: half of the maximum heap
+        long budgetBytes = memoryBudgetMb > 0
+                ? memoryBudgetMb * 1024 * 1024
+                : Runtime.getRuntime().maxMemory() / 2;
+        memoryBudget = new MemoryBudget(budgetBytes);
+
+        int threads = resolveThreadCount();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workerLoop, "render-worker-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        System.out.println("Render scheduler: " + threads + " thread(s), raster budget "
+                + (budgetBytes / (1024 * 1024)) + " MB");
+    }
+
+    /**
+     * Stop the worker threads. Queued tasks are discarded.
+     */
+    @PreDestroy
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+            for (Batch batch : new ArrayList<>(activeBatches)) {
+                batch.cancel();
+            }
+            lock.notifyAll();
+        }
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        workers.clear();
+    }
+
+    /**
+     * Creates a new batch for a job.
+     *
+     * @param name   Job name used for diagnostics
+     * @param weight Number of tasks served per round-robin turn (higher = larger share)
+     * @return Batch to submit page tasks to
+     */
+    public Batch createBatch(String name, int weight) {
+        return new Batch(name, weight);
+    }
+
+    /**
+     * Global raster memory budget that page renders must acquire before allocating.
+     */
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sizes the pool to CPU cores, limited by how many concurrent renders fit in the heap.
+     */
+    private int resolveThreadCount() {
+        if (configuredThreads > 0) {
+            return configuredThreads;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        long maxMemoryMb = Runtime.getRuntime().maxMemory() / (1024 * 1024);
+        int memoryBound = (int) Math.max(1, maxMemoryMb / Math.max(1, memoryPerThreadMb));
+        return Math.max(1, Math.min(cores, memoryBound));
+    }
+
+    private void workerLoop() {
+        while (true) {
+            Batch batch;
+            Runnable task;
+
+            synchronized (lock) {
+                while (running && activeBatches.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        if (!running) {
+                            return;
+                        }
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+
+                // Weighted round-robin: the head batch runs up to `weight` tasks, then rotates
+                batch = activeBatches.peekFirst();
+                task = batch.tasks.pollFirst();
+                queuedTasks--;
+                batch.servedThisTurn++;
+
+                if (batch.tasks.isEmpty()) {
+                    activeBatches.pollFirst();
+                    batch.scheduled = false;
+                    batch.servedThisTurn = 0;
+                } else if (batch.servedThisTurn >= batch.weight) {
+                    activeBatches.pollFirst();
+                    activeBatches.addLast(batch);
+                    batch.servedThisTurn = 0;
+                }
+            }
+
+            busyWorkers.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                System.err.println("Render task for " + batch.name + " failed: " + t.getMessage());
+            } finally {
+                busyWorkers.decrementAndGet();
+                synchronized (lock) {
+                    batch.pendingTasks--;
+                    if (batch.pendingTasks == 0) {
+                        lock.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of page tasks waiting for a worker across all jobs.
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queuedTasks;
+        }
+    }
+
+    /**
+     * Number of jobs with queued page tasks.
+     */
+    public int getActiveBatchCount() {
+        synchronized (lock) {
+            return activeBatches.size();
+        }
+    }
+
+    public int getThreadCount() {
+        return workers.size();
+    }
+
+    public int getBusyThreadCount() {
+        return busyWorkers.get();
+    }
+}
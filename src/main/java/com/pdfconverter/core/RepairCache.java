@@ -0,0 +1,409 @@
+package com.pdfconverter.core;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.pdfconverter.util.HashUtility;
+import com.pdfconverter.util.LinkUtility;
+import jakarta.annotation.PostConstruct;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk cache of repaired PDFs, and a store of document fingerprints known to need repair.
+ *
+ * Repaired copies are keyed by the content hash of the original PDF, the repair
+ * tool and the repaired pages, so converting the same damaged file again (e.g.
+ * at another DPI) reuses the repaired copy instead of running QPDF or
+ * Ghostscript again. A copy of the whole document also serves any page subset.
+ * The cache is bounded by total size and evicts least recently used copies.
+ *
+ * Fingerprints (producer, creator, PDF version and xref kind) are counted per
+ * conversion. Once a fingerprint has needed repair often enough, its documents
+ * are rendered from a repaired copy right away, skipping the first pass that
+ * would fail anyway. Every tenth such document is still rendered directly, so
+ * a fingerprint whose documents no longer need repair is noticed.
+ */
+@Service
+public class RepairCache {
+
+    private static final String FINGERPRINTS_FILE = "fingerprints.json";
+    private static final Type FINGERPRINTS_TYPE = new TypeToken<Map<String, FingerprintStats>>() { }.getType();
+    private static final int MAX_PAGE_LIST_IN_KEY = 64;
+    // Every n-th document of a known-bad fingerprint is still rendered directly, so stale entries recover
+    private static final int PROBE_INTERVAL = 10;
+
+    @Value("${app.repair-cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${app.repair-cache.dir:repair-cache}")
+    private String cacheDirConfig;
+
+    @Value("${app.repair-cache.max-size-mb:2048}")
+    private long maxSizeMb;
+
+    @Value("${app.repair-cache.known-bad-min-jobs:3}")
+    private int knownBadMinJobs;
+
+    @Value("${app.repair-cache.known-bad-ratio:0.9}")
+    private double knownBadRatio;
+
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private Map<String, FingerprintStats> fingerprints = new HashMap<>();
+    private long fingerprintVersion = 0;
+
+    // Serializes writes of fingerprints.json, which happen outside the cache monitor
+    private final Object fingerprintFileLock = new Object();
+    private long savedFingerprintVersion = 0;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong evictions = new AtomicLong(0);
+    private final AtomicLong skippedFirstPasses = new AtomicLong(0);
+
+    /**
+     * Repair outcomes of the documents sharing one fingerprint.
+     */
+    static class FingerprintStats {
+        private int jobs;
+        private int repairedJobs;
+        private Map<String, Integer> recoveredBy = new HashMap<>();
+        private transient int skipsSinceProbe;
+    }
+
+    /**
+     * Rebuild the index and fingerprints from a previous run.
+     */
+    @PostConstruct
+    public void loadIndex() {
+        if (!cacheEnabled) {
+            return;
+        }
+
+        File[] files = getCacheDir().listFiles(file -> file.isFile() && file.getName().endsWith(".pdf"));
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            synchronized (this) {
+                for (File file : files) {
+                    entrySizes.put(file.getName(), file.length());
+                    totalBytes += file.length();
+                }
+                evictIfNeeded();
+            }
+        }
+
+        File fingerprintFile = new File(getCacheDir(), FINGERPRINTS_FILE);
+        if (fingerprintFile.exists()) {
+            try (Reader reader = new FileReader(fingerprintFile, StandardCharsets.UTF_8)) {
+                Map<String, FingerprintStats> loaded = gson.fromJson(reader, FINGERPRINTS_TYPE);
+                if (loaded != null) {
+                    synchronized (this) {
+                        fingerprints = new HashMap<>(loaded);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Ignoring unreadable repair fingerprints: " + e.getMessage());
+            }
+        }
+
+        System.out.println("Repair cache: " + entrySizes.size() + " repaired PDFs, "
+                + (totalBytes / (1024 * 1024)) + " MB, " + fingerprints.size() + " fingerprints");
+    }
+
+    /**
+     * Gets the absolute path of the cache directory, creating it if needed.
+     */
+    private File getCacheDir() {
+        File dir = new File(System.getProperty("user.dir"), cacheDirConfig);
+        try {
+            Files.createDirectories(dir.toPath());
+        } catch (IOException e) {
+            // Reported when a copy is stored
+        }
+        return dir;
+    }
+
+    public boolean isEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Builds the cache key of a repaired copy.
+     *
+     * @param documentHash Content hash of the original PDF
+     * @param strategy     Repair tool (PageResult.STRATEGY_QPDF or STRATEGY_GHOSTSCRIPT)
+     * @param pageNumbers  Repaired pages in ascending order, or null for the whole document
+     */
+    public static String buildKey(String documentHash, String strategy, List<Integer> pageNumbers) {
+        String pages = "all";
+        if (pageNumbers != null) {
+            pages = PdfRepairService.toPageList(pageNumbers).replace(',', '_');
+            if (pages.length() > MAX_PAGE_LIST_IN_KEY) {
+                pages = HashUtility.sha256Hex(pages).substring(0, 16);
+            }
+            pages = "p" + pages;
+        }
+        return documentHash + "-" + strategy + "-" + pages + ".pdf";
+    }
+
+    /**
+     * Materializes a cached repaired copy of the given pages at the target location.
+     * A cached copy of the whole document is used if there is no copy of exactly these pages.
+     *
+     * @param pageNumbers Pages to repair in ascending order, or null for the whole document
+     * @return The copy at the target location, or null on a miss
+     */
+    public RepairedPdf lookup(String documentHash, String strategy, List<Integer> pageNumbers, File target) {
+        synchronized (this) {
+            if (pageNumbers != null && linkEntry(buildKey(documentHash, strategy, pageNumbers), target)) {
+                hits.incrementAndGet();
+                return new RepairedPdf(target, pageNumbers);
+            }
+            if (linkEntry(buildKey(documentHash, strategy, null), target)) {
+                hits.incrementAndGet();
+                return RepairedPdf.wholeDocument(target);
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Whether a copy of these pages (or of the whole document) is cached.
+     */
+    public synchronized boolean contains(String documentHash, String strategy, List<Integer> pageNumbers) {
+        return (pageNumbers != null && entrySizes.containsKey(buildKey(documentHash, strategy, pageNumbers)))
+                || entrySizes.containsKey(buildKey(documentHash, strategy, null));
+    }
+
+    /**
+     * Links an entry to the target. Caller must hold the monitor.
+     */
+    private boolean linkEntry(String key, File target) {
+        if (!entrySizes.containsKey(key)) {
+            return false;
+        }
+        try {
+            LinkUtility.linkOrCopy(new File(getCacheDir(), key), target);
+            return true;
+        } catch (IOException e) {
+            // Entry vanished underneath us; drop it and repair instead
+            Long size = entrySizes.remove(key);
+            totalBytes -= size != null ? size : 0;
+            return false;
+        }
+    }
+
+    /**
+     * Adds a freshly repaired copy to the cache.
+     */
+    public void store(String documentHash, String strategy, RepairedPdf repairedPdf) {
+        File file = repairedPdf.getFile();
+        long size = file.length();
+        if (size > maxSizeMb * 1024 * 1024) {
+            return;
+        }
+
+        String key = buildKey(documentHash, strategy, repairedPdf.getPageNumbers());
+        synchronized (this) {
+            if (entrySizes.containsKey(key)) {
+                return;
+            }
+            try {
+                LinkUtility.linkOrCopy(file, new File(getCacheDir(), key));
+            } catch (IOException e) {
+                System.err.println("Failed to cache repaired PDF " + key + ": " + e.getMessage());
+                return;
+            }
+            entrySizes.put(key, size);
+            totalBytes += size;
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Evicts least recently used copies until the cache fits its size bound.
+     * Caller must hold the monitor.
+     */
+    private void evictIfNeeded() {
+        long maxBytes = maxSizeMb * 1024 * 1024;
+        Iterator<Map.Entry<String, Long>> iterator = entrySizes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(getCacheDir(), eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Producer/structure signature of a document, e.g.
+     * "1.4|producer=Acme PDF Library|creator=Scan Station|xref=table".
+     * Version numbers are removed from producer and creator, so all releases
+     * of a tool share a fingerprint.
+     *
+     * @return The fingerprint, or null if the document names neither producer
+     *         nor creator (too generic to tell documents apart)
+     */
+    public static String fingerprint(PDDocument document) {
+        PDDocumentInformation info = document.getDocumentInformation();
+        String producer = normalize(info.getProducer());
+        String creator = normalize(info.getCreator());
+        if (producer.isEmpty() && creator.isEmpty()) {
+            return null;
+        }
+        return document.getVersion()
+                + "|producer=" + producer
+                + "|creator=" + creator
+                + "|xref=" + (document.getDocument().isXRefStream() ? "stream" : "table");
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String normalized = value.replaceAll("[0-9][0-9.,_-]*", "").replaceAll("\\s+", " ").trim();
+        return normalized.length() > 64 ? normalized.substring(0, 64) : normalized;
+    }
+
+    /**
+     * Repair tool to use right away for the next document with this fingerprint,
+     * or null if it should be rendered directly first.
+     */
+    public synchronized String getKnownRepairStrategy(String fingerprint) {
+        FingerprintStats stats = fingerprints.get(fingerprint);
+        if (!cacheEnabled || !isKnownBad(stats)) {
+            return null;
+        }
+        if (++stats.skipsSinceProbe >= PROBE_INTERVAL) {
+            stats.skipsSinceProbe = 0;
+            return null;
+        }
+
+        String strategy = null;
+        int best = 0;
+        for (Map.Entry<String, Integer> entry : stats.recoveredBy.entrySet()) {
+            if (entry.getValue() > best) {
+                strategy = entry.getKey();
+                best = entry.getValue();
+            }
+        }
+        return strategy;
+    }
+
+    private boolean isKnownBad(FingerprintStats stats) {
+        return stats != null && stats.repairedJobs >= knownBadMinJobs
+                && stats.repairedJobs >= knownBadRatio * stats.jobs;
+    }
+
+    /**
+     * Records the first pass skipped for a known-bad fingerprint.
+     */
+    public void recordSkippedFirstPass() {
+        skippedFirstPasses.incrementAndGet();
+    }
+
+    /**
+     * Records the outcome of one conversion that rendered the original first.
+     * Conversions that skipped the first pass say nothing about whether the
+     * document needed repair, and are not recorded.
+     *
+     * The stats are snapshotted under the cache monitor and written to disk
+     * after releasing it, so lookups and stores never wait for the file.
+     *
+     * @param recoveredBy Repair tool that recovered pages, or null if no repair was needed or helped
+     */
+    public void recordOutcome(String fingerprint, String recoveredBy) {
+        if (!cacheEnabled || fingerprint == null) {
+            return;
+        }
+
+        String json;
+        long version;
+        synchronized (this) {
+            FingerprintStats stats = fingerprints.computeIfAbsent(fingerprint, key -> new FingerprintStats());
+            stats.jobs++;
+            if (recoveredBy != null) {
+                stats.repairedJobs++;
+                stats.recoveredBy.merge(recoveredBy, 1, Integer::sum);
+            }
+            json = gson.toJson(fingerprints, FINGERPRINTS_TYPE);
+            version = ++fingerprintVersion;
+        }
+        saveFingerprints(json, version);
+    }
+
+    /**
+     * Replaces fingerprints.json with a snapshot, unless a newer one was already written.
+     */
+    private void saveFingerprints(String json, long version) {
+        synchronized (fingerprintFileLock) {
+            if (version <= savedFingerprintVersion) {
+                return;
+            }
+            File target = new File(getCacheDir(), FINGERPRINTS_FILE);
+            File temp = new File(target.getParentFile(), FINGERPRINTS_FILE + ".tmp");
+            try {
+                try (Writer writer = new FileWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(json);
+                }
+                Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+                savedFingerprintVersion = version;
+            } catch (IOException e) {
+                System.err.println("Failed to save repair fingerprints: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Snapshot of cache size, hit/miss and fingerprint statistics.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        int knownBad = 0;
+        for (FingerprintStats stats : fingerprints.values()) {
+            if (isKnownBad(stats)) {
+                knownBad++;
+            }
+        }
+
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("enabled", cacheEnabled);
+        metrics.put("repairedPdfs", entrySizes.size());
+        metrics.put("sizeBytes", totalBytes);
+        metrics.put("maxSizeBytes", maxSizeMb * 1024 * 1024);
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("evictions", evictions.get());
+        metrics.put("fingerprints", fingerprints.size());
+        metrics.put("knownBadFingerprints", knownBad);
+        metrics.put("skippedFirstPasses", skippedFirstPasses.get());
+        return metrics;
+    }
+}
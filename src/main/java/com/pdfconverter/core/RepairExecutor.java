@@ -0,0 +1,219 @@
+package com.pdfconverter.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Runs external repair tools (QPDF, Ghostscript) with bounded concurrency.
+ * Repairs beyond the limit wait in a fair FIFO queue, so a burst of damaged
+ * PDFs cannot take every core away from page rendering; tools are also started
+ * with a lower CPU priority (nice) where available.
+ *
+ * Tool output is drained on a separate thread while the caller waits for the
+ * process, so the timeout fires even if the tool keeps writing. Queue and
+ * execution times are recorded for the health endpoint.
+ */
+public class RepairExecutor {
+    private static final int MAX_OUTPUT_CHARS = 16 * 1024;
+
+    /**
+     * Work done while holding a repair slot.
+     */
+    public interface RepairTask<T> {
+        T run() throws IOException;
+    }
+
+    private final int maxConcurrent;
+    private final Semaphore slots;
+    private final List<String> commandPrefix = new ArrayList<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong totalQueueMs = new AtomicLong();
+    private final AtomicLong totalExecMs = new AtomicLong();
+    private final AtomicLong maxQueueMs = new AtomicLong();
+
+    /**
+     * @param maxConcurrent Repairs running at once (0 = half the CPU cores, at least 2)
+     * @param niceLevel     CPU priority adjustment for the tools (0 = run at normal priority)
+     */
+    public RepairExecutor(int maxConcurrent, int niceLevel) {
+        this.maxConcurrent = maxConcurrent > 0
+                ? maxConcurrent
+                : Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.slots = new Semaphore(this.maxConcurrent, true);
+
+        if (niceLevel > 0 && new File("/usr/bin/nice").canExecute()) {
+            commandPrefix.add("/usr/bin/nice");
+            commandPrefix.add("-n");
+            commandPrefix.add(String.valueOf(niceLevel));
+        }
+    }
+
+    /**
+     * Runs a task once a repair slot is free.
+     *
+     * @param name Tool name used in log messages
+     */
+    public <T> T execute(String name, RepairTask<T> task) throws IOException {
+        long queuedAt = System.currentTimeMillis();
+        queued.incrementAndGet();
+        try {
+            slots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(name + " repair was interrupted while queued", e);
+        } finally {
+            queued.decrementAndGet();
+        }
+
+        long startTime = System.currentTimeMillis();
+        long queueMs = startTime - queuedAt;
+        if (queueMs > 0) {
+            System.out.println(name + " repair waited " + queueMs + "ms for a repair slot");
+        }
+        totalQueueMs.addAndGet(queueMs);
+        maxQueueMs.accumulateAndGet(queueMs, Math::max);
+        running.incrementAndGet();
+        boolean success = false;
+        try {
+            T result = task.run();
+            success = true;
+            return result;
+        } finally {
+            long execMs = System.currentTimeMillis() - startTime;
+            totalExecMs.addAndGet(execMs);
+            running.decrementAndGet();
+            slots.release();
+            (success ? completed : failed).incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a tool to completion in a repair slot, failing on timeout or a non-zero exit code.
+     *
+     * @param started Receives the process once it is running (may be null), e.g. to cancel it
+     */
+    public void runProcess(String name, List<String> command, int timeoutSeconds,
+                           Consumer<Process> started) throws IOException {
+        execute(name, () -> {
+            List<String> fullCommand = new ArrayList<>(commandPrefix);
+            fullCommand.addAll(command);
+            ProcessBuilder pb = new ProcessBuilder(fullCommand);
+            pb.redirectErrorStream(true);
+
+            long startTime = System.currentTimeMillis();
+            Process process = pb.start();
+            if (started != null) {
+                started.accept(process);
+            }
+            OutputDrain output = new OutputDrain(process.getInputStream(), name);
+
+            try {
+                boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+                if (!finished) {
+                    process.destroyForcibly();
+                    timedOut.incrementAndGet();
+                    throw new IOException(name + " repair timed out after " + timeoutSeconds + " seconds");
+                }
+                output.await(1, TimeUnit.SECONDS);
+
+                if (process.exitValue() != 0) {
+                    throw new IOException(name + " repair failed: " + output.getText());
+                }
+
+                long elapsed = System.currentTimeMillis() - startTime;
+                System.out.println(name + " repair completed in " + (elapsed / 1000.0) + "s");
+                return null;
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+                throw new IOException(name + " repair was interrupted", e);
+            }
+        });
+    }
+
+    /**
+     * Command prefix that lowers the tools' CPU priority (empty if disabled or unavailable).
+     */
+    public List<String> getCommandPrefix() {
+        return new ArrayList<>(commandPrefix);
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * Snapshot of repair queue and execution statistics.
+     */
+    public Map<String, Object> getMetrics() {
+        long runs = completed.get() + failed.get();
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("queued", queued.get());
+        metrics.put("running", running.get());
+        metrics.put("completed", completed.get());
+        metrics.put("failed", failed.get());
+        metrics.put("timedOut", timedOut.get());
+        metrics.put("averageQueueMs", runs > 0 ? (double) totalQueueMs.get() / runs : 0.0);
+        metrics.put("maxQueueMs", maxQueueMs.get());
+        metrics.put("averageExecMs", runs > 0 ? (double) totalExecMs.get() / runs : 0.0);
+        return metrics;
+    }
+
+    /**
+     * Reads a tool's output on its own thread, keeping the first part for error messages.
+     */
+    static class OutputDrain {
+        private final StringBuilder text = new StringBuilder();
+        private final Thread thread;
+
+        OutputDrain(InputStream input, String name) {
+            this.thread = new Thread(() -> {
+                byte[] buffer = new byte[8192];
+                try (InputStream in = input) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        synchronized (text) {
+                            if (text.length() < MAX_OUTPUT_CHARS) {
+                                text.append(new String(buffer, 0, read, StandardCharsets.UTF_8));
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // Process was destroyed
+                }
+            }, name.toLowerCase() + "-output");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Waits for the output to end; a tool's child process may keep it open.
+         */
+        void await(long timeout, TimeUnit unit) throws InterruptedException {
+            thread.join(unit.toMillis(timeout));
+        }
+
+        String getText() {
+            synchronized (text) {
+                return text.toString();
+            }
+        }
+    }
+}
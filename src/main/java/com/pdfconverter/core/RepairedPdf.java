@@ -0,0 +1,76 @@
+package com.pdfconverter.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A repaired copy of some pages of a PDF, with the mapping from the original
+ * page numbers to the pages of the copy.
+ */
+public class RepairedPdf {
+    private final File file;
+    private final boolean wholeDocument;
+    private final Map<Integer, Integer> pageIndices = new HashMap<>();
+    private final List<Integer> pageNumbers = new ArrayList<>();
+
+    /**
+     * @param file        Repaired copy
+     * @param pageNumbers Original 1-based page numbers, in the order they appear in the copy
+     */
+    public RepairedPdf(File file, List<Integer> pageNumbers) {
+        this(file, false);
+        for (int i = 0; i < pageNumbers.size(); i++) {
+            pageIndices.put(pageNumbers.get(i) - 1, i);
+        }
+        this.pageNumbers.addAll(pageNumbers);
+    }
+
+    private RepairedPdf(File file, boolean wholeDocument) {
+        this.file = file;
+        this.wholeDocument = wholeDocument;
+    }
+
+    /**
+     * Copy of the whole document; page indices map to themselves.
+     */
+    public static RepairedPdf wholeDocument(File file) {
+        return new RepairedPdf(file, true);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Maps a 0-based page index of the original document to the copy.
+     *
+     * @return Index in the copy, or -1 if the page was not repaired
+     */
+    public int toRepairedIndex(int pageIndex) {
+        if (wholeDocument) {
+            return pageIndex;
+        }
+        return pageIndices.getOrDefault(pageIndex, -1);
+    }
+
+    /**
+     * Original 1-based page numbers held by the copy, in order, or null for a whole-document copy.
+     */
+    public List<Integer> getPageNumbers() {
+        return wholeDocument ? null : new ArrayList<>(pageNumbers);
+    }
+
+    public boolean isWholeDocument() {
+        return wholeDocument;
+    }
+
+    /**
+     * Number of pages the copy must have, or -1 when it holds the whole document.
+     */
+    public int getExpectedPageCount() {
+        return wholeDocument ? -1 : pageIndices.size();
+    }
+}
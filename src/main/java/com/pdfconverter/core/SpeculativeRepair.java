@@ -0,0 +1,170 @@
+package com.pdfconverter.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Repair tools running concurrently on the same PDF, raced against each other.
+ * Results are handed out in the order the tools finish; the caller re-renders
+ * its failed pages from the first copy and only waits for the next one if
+ * pages are still failing. All tools share one timeout, and closing the race
+ * destroys the tools that are still running. Copies handed out by
+ * {@link #awaitNext()} belong to the caller.
+ */
+public class SpeculativeRepair implements Closeable {
+
+    /**
+     * A repair run by one tool; reports its process so it can be cancelled.
+     */
+    interface RepairAction {
+        RepairedPdf repair(Consumer<Process> started) throws IOException;
+    }
+
+    private final long deadlineNanos;
+    private final int timeoutSeconds;
+    private final BlockingQueue<Result> completions = new LinkedBlockingQueue<>();
+    private final List<Process> processes = new CopyOnWriteArrayList<>();
+    private int pending = 0;
+    private volatile boolean closed = false;
+
+    SpeculativeRepair(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+        this.deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+    }
+
+    /**
+     * Starts a tool on its own thread.
+     *
+     * @param strategy Strategy the tool's result is recorded as (PageResult.STRATEGY_*)
+     */
+    void start(String strategy, RepairAction action) {
+        pending++;
+        Thread thread = new Thread(() -> {
+            long startTime = System.currentTimeMillis();
+            Result result;
+            try {
+                RepairedPdf repairedPdf = action.repair(this::register);
+                result = new Result(strategy, repairedPdf, null, System.currentTimeMillis() - startTime);
+            } catch (IOException | RuntimeException e) {
+                result = new Result(strategy, null, e, System.currentTimeMillis() - startTime);
+            }
+            synchronized (this) {
+                if (closed) {
+                    // Nobody will render from it any more
+                    result.deleteFile();
+                } else {
+                    completions.add(result);
+                }
+            }
+        }, "repair-" + strategy);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void register(Process process) {
+        processes.add(process);
+        if (closed) {
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Waits for the next tool to produce a repaired copy. Tools that fail are skipped.
+     *
+     * @return The next successful result, or null once every tool has failed or the timeout is reached
+     * @throws IOException if interrupted while waiting
+     */
+    public Result awaitNext() throws IOException {
+        while (pending > 0) {
+            long remaining = deadlineNanos - System.nanoTime();
+            if (remaining <= 0) {
+                System.err.println("Speculative repair timed out after " + timeoutSeconds + " seconds");
+                close();
+                return null;
+            }
+
+            Result result;
+            try {
+                result = completions.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for repair", e);
+            }
+            if (result == null) {
+                continue;
+            }
+
+            pending--;
+            if (result.getError() == null) {
+                return result;
+            }
+            System.err.println(result.getStrategy() + " repair failed: " + result.getError().getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Destroys the tools that are still running and deletes the repaired
+     * copies that were never handed out.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            Result unused;
+            while ((unused = completions.poll()) != null) {
+                unused.deleteFile();
+            }
+        }
+        for (Process process : processes) {
+            if (process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Outcome of one tool in the race.
+     */
+    public static class Result {
+        private final String strategy;
+        private final RepairedPdf repairedPdf;
+        private final Exception error;
+        private final long elapsedMs;
+
+        Result(String strategy, RepairedPdf repairedPdf, Exception error, long elapsedMs) {
+            this.strategy = strategy;
+            this.repairedPdf = repairedPdf;
+            this.error = error;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public String getStrategy() {
+            return strategy;
+        }
+
+        public RepairedPdf getRepairedPdf() {
+            return repairedPdf;
+        }
+
+        public Exception getError() {
+            return error;
+        }
+
+        public long getElapsedMs() {
+            return elapsedMs;
+        }
+
+        private void deleteFile() {
+            if (repairedPdf != null) {
+                repairedPdf.getFile().delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.pdfconverter.core;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Low-latency renderer for single-page previews.
+ * Renders straight to a target pixel size, keeps recently previewed documents
+ * open so paging through one document does not re-parse it, and caches encoded
+ * thumbnails in memory by content hash. Java2D and the standard fonts are warmed
+ * up at startup so the first request does not pay their initialization cost.
+ *
+ * Previews are rendered as one-task batches on the shared RenderScheduler and
+ * reserve their raster from its memory budget, so they count against the same
+ * thread and memory limits as conversions; the request thread only waits.
+ */
+@Service
+public class ThumbnailRenderer {
+
+    private static final long RENDER_TIMEOUT_SECONDS = 60;
+
+    @Autowired
+    private RenderScheduler renderScheduler;
+
+    @Value("${app.preview.open-documents:8}")
+    private int maxOpenDocuments;
+
+    @Value("${app.preview.cache-size-mb:32}")
+    private long cacheSizeMb;
+
+    private final ImageWriter imageWriter = new ImageWriter();
+
+    // Access-ordered LRU of open documents, keyed by content hash
+    private final LinkedHashMap<String, DocumentHandlePool> openDocuments = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Access-ordered LRU of encoded thumbnails
+    private final LinkedHashMap<String, Thumbnail> thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong totalRenderMs = new AtomicLong(0);
+
+    /**
+     * An encoded preview image.
+     */
+    public static class Thumbnail {
+        private final byte[] bytes;
+        private final String format;
+        private final int width;
+        private final int height;
+        private final long renderTimeMs;
+        private final boolean cacheHit;
+
+        Thumbnail(byte[] bytes, String format, int width, int height, long renderTimeMs, boolean cacheHit) {
+            this.bytes = bytes;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.renderTimeMs = renderTimeMs;
+            this.cacheHit = cacheHit;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public long getRenderTimeMs() {
+            return renderTimeMs;
+        }
+
+        public boolean isCacheHit() {
+            return cacheHit;
+        }
+    }
+
+    /**
+     * Render a tiny in-memory document once so class loading, font setup and
+     * Java2D pipeline initialization happen before the first real request.
+     */
+    @PostConstruct
+    public void warmUp() {
+        long startTime = System.currentTimeMillis();
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 720);
+                content.showText("warm-up");
+                content.endText();
+            }
+            BufferedImage image = new PDFRenderer(document).renderImage(0, 0.25f, ImageType.RGB);
+            imageWriter.writeImage(image, new ByteArrayOutputStream(), "png");
+            imageWriter.writeImage(image, new ByteArrayOutputStream(), "jpg");
+            System.out.println("Preview renderer warmed up in " + (System.currentTimeMillis() - startTime) + "ms");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Preview renderer warm-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Close all documents kept open for previews.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        for (DocumentHandlePool pool : openDocuments.values()) {
+            pool.close();
+        }
+        openDocuments.clear();
+    }
+
+    /**
+     * Renders one page so that its longer side is {@code maxSize} pixels.
+     *
+     * @param pdfFile      PDF file
+     * @param documentHash Content hash of the PDF (cache key)
+     * @param pageNumber   1-based page number
+     * @param maxSize      Target size of the longer side in pixels
+     * @param format       Image format (jpg/png)
+     * @return Encoded thumbnail
+     * @throws IOException if the page cannot be rendered
+     */
+    public Thumbnail render(File pdfFile, String documentHash, int pageNumber, int maxSize, String format)
+            throws IOException {
+        String cacheKey = documentHash + "-p" + pageNumber + "-" + maxSize + "." + format;
+        synchronized (this) {
+            Thumbnail cached = thumbnails.get(cacheKey);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return new Thumbnail(cached.bytes, cached.format, cached.width, cached.height, 0, true);
+            }
+        }
+        misses.incrementAndGet();
+
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Thumbnail> result = new CompletableFuture<>();
+        RenderScheduler.Batch batch = renderScheduler.createBatch("preview " + documentHash, 1);
+        batch.submit(() -> {
+            try {
+                result.complete(renderOnWorker(pdfFile, documentHash, pageNumber, maxSize, format, startTime));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+
+        Thumbnail thumbnail;
+        try {
+            thumbnail = result.get(RENDER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            batch.cancel();
+            Thread.currentThread().interrupt();
+            throw new IOException("Preview interrupted", e);
+        } catch (TimeoutException e) {
+            batch.cancel();
+            throw new IOException("Preview timed out after " + RENDER_TIMEOUT_SECONDS + "s");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException("Preview failed: " + cause, cause);
+        }
+
+        totalRenderMs.addAndGet(thumbnail.renderTimeMs);
+        cacheThumbnail(cacheKey, thumbnail);
+        return thumbnail;
+    }
+
+    /**
+     * Renders and encodes the thumbnail on a scheduler worker, holding the
+     * page's raster size from the memory budget until it is encoded.
+     */
+    private Thumbnail renderOnWorker(File pdfFile, String documentHash, int pageNumber, int maxSize, String format,
+                                     long startTime) throws IOException, InterruptedException {
+        DocumentHandlePool pool;
+        DocumentHandlePool.Handle handle;
+        while (true) {
+            pool = getDocumentPool(pdfFile, documentHash);
+            try {
+                handle = pool.borrow();
+                break;
+            } catch (IOException e) {
+                // Evicted between lookup and borrow: look it up again
+                if (!pool.isClosed()) {
+                    throw e;
+                }
+            }
+        }
+
+        MemoryBudget memoryBudget = renderScheduler.getMemoryBudget();
+        long reservedBytes = 0;
+        try {
+            PDDocument document = handle.getDocument();
+            if (pageNumber < 1 || pageNumber > document.getNumberOfPages()) {
+                throw new IllegalArgumentException("Page " + pageNumber + " does not exist (document has "
+                        + document.getNumberOfPages() + " pages)");
+            }
+
+            PDPage page = document.getPage(pageNumber - 1);
+            PDRectangle box = page.getCropBox();
+            float scale = maxSize / Math.max(box.getWidth(), box.getHeight());
+            // ImageType.RGB rasters use 32-bit pixels
+            reservedBytes = memoryBudget.acquire(PdfConverter.estimateRasterBytes(page, scale, 32));
+
+            BufferedImage image = handle.getRenderer().renderImage(pageNumber - 1, scale, ImageType.RGB);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            imageWriter.writeImage(image, out, format);
+            return new Thumbnail(out.toByteArray(), format, image.getWidth(), image.getHeight(),
+                    System.currentTimeMillis() - startTime, false);
+        } finally {
+            memoryBudget.release(reservedBytes);
+            pool.release(handle);
+        }
+    }
+
+    /**
+     * Gets the open document pool for a hash, opening it and evicting the
+     * least recently used document if necessary.
+     */
+    private synchronized DocumentHandlePool getDocumentPool(File pdfFile, String documentHash) {
+        DocumentHandlePool pool = openDocuments.get(documentHash);
+        if (pool == null) {
+            pool = new DocumentHandlePool(pdfFile);
+            // Thumbnails only touch a page or two; subsampling images is invisible at this size
+            pool.setSubsamplingAllowed(true);
+            openDocuments.put(documentHash, pool);
+
+            Iterator<Map.Entry<String, DocumentHandlePool>> iterator = openDocuments.entrySet().iterator();
+            while (openDocuments.size() > maxOpenDocuments && iterator.hasNext()) {
+                iterator.next().getValue().close();
+                iterator.remove();
+            }
+        }
+        return pool;
+    }
+
+    private synchronized void cacheThumbnail(String cacheKey, Thumbnail thumbnail) {
+        long maxBytes = cacheSizeMb * 1024 * 1024;
+        if (thumbnail.bytes.length > maxBytes || thumbnails.containsKey(cacheKey)) {
+            return;
+        }
+        thumbnails.put(cacheKey, thumbnail);
+        cachedBytes += thumbnail.bytes.length;
+
+        Iterator<Map.Entry<String, Thumbnail>> iterator = thumbnails.entrySet().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().getValue().bytes.length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Snapshot of preview cache and latency statistics.
+     */
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("openDocuments", openDocuments.size());
+        metrics.put("cachedThumbnails", thumbnails.size());
+        metrics.put("cachedBytes", cachedBytes);
+        metrics.put("hits", hits.get());
+        metrics.put("misses", misses.get());
+        metrics.put("averageRenderMs", misses.get() > 0 ? (double) totalRenderMs.get() / misses.get() : 0.0);
+        return metrics;
+    }
+}
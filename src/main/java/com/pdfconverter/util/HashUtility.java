@@ -0,0 +1,55 @@
+package com.pdfconverter.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Utility class for content hashing.
+ */
+public class HashUtility {
+
+    /**
+     * Computes the SHA-256 digest of a file.
+     *
+     * @param file File to hash
+     * @return Lowercase hex digest
+     * @throws IOException if reading fails
+     */
+    public static String sha256Hex(File file) throws IOException {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[ZipUtility.BUFFER_SIZE];
+        try (InputStream fis = new FileInputStream(file)) {
+            int length;
+            while ((length = fis.read(buffer)) > 0) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the SHA-256 digest of a string's UTF-8 bytes.
+     *
+     * @return Lowercase hex digest
+     */
+    public static String sha256Hex(String text) {
+        return HexFormat.of().formatHex(newSha256().digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates a SHA-256 digest instance.
+     */
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.pdfconverter.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Utility class for sharing files between directories without copying when possible.
+ */
+public class LinkUtility {
+
+    /**
+     * Hard-links a file when the filesystem allows it, otherwise copies it.
+     * An existing target is replaced.
+     *
+     * @param source Existing file
+     * @param target Link or copy to create
+     * @throws IOException if neither linking nor copying succeeds
+     */
+    public static void linkOrCopy(File source, File target) throws IOException {
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -2,75 +2,72 @@ package com.pdfconverter.util;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 /**
- * Utility class for creating ZIP archives.
+ * Utility class for writing ZIP archive entries.
  */
 public class ZipUtility {
 
     /**
-     * Zips an entire directory into a ZIP file.
-     *
-     * @param sourceDir Source directory to zip
-     * @param zipFile   Output ZIP file
-     * @throws IOException if zipping fails
+     * Copy buffer size; large enough to keep per-call overhead negligible.
      */
-    public static void zipDirectory(File sourceDir, File zipFile) throws IOException {
-        try (FileOutputStream fos = new FileOutputStream(zipFile);
-             ZipOutputStream zos = new ZipOutputStream(fos)) {
-
-            zipDirectoryRecursive(sourceDir, sourceDir, zos);
-        }
-    }
+    public static final int BUFFER_SIZE = 64 * 1024;
 
     /**
-     * Recursively adds files to ZIP archive.
+     * Adds a single file to the ZIP archive.
+     * Already-compressed images are STORED instead of deflated again.
      *
-     * @param rootDir   Root directory
-     * @param sourceDir Current directory
      * @param zos       ZipOutputStream
-     * @throws IOException if adding files fails
+     * @param file      File to add
+     * @param entryName Name of the entry inside the archive
+     * @throws IOException if adding file fails
      */
-    private static void zipDirectoryRecursive(File rootDir, File sourceDir, ZipOutputStream zos) throws IOException {
-        File[] files = sourceDir.listFiles();
-        if (files == null) {
-            return;
+    public static void addFile(ZipOutputStream zos, File file, String entryName) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(entryName);
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        if (isPrecompressed(entryName)) {
+            // STORED entries need size and CRC up front; the file is hot in the page cache
+            zipEntry.setMethod(ZipEntry.STORED);
+            zipEntry.setSize(file.length());
+            zipEntry.setCompressedSize(file.length());
+            zipEntry.setCrc(computeCrc(file, buffer));
         }
 
-        for (File file : files) {
-            if (file.isDirectory()) {
-                zipDirectoryRecursive(rootDir, file, zos);
-            } else {
-                addFileToZip(rootDir, file, zos);
+        zos.putNextEntry(zipEntry);
+
+        try (InputStream fis = new FileInputStream(file)) {
+            int length;
+            while ((length = fis.read(buffer)) > 0) {
+                zos.write(buffer, 0, length);
             }
         }
+
+        zos.closeEntry();
     }
 
     /**
-     * Adds a single file to the ZIP archive.
-     *
-     * @param rootDir Root directory (for relative path calculation)
-     * @param file    File to add
-     * @param zos     ZipOutputStream
-     * @throws IOException if adding file fails
+     * Checks whether a file is already compressed, so deflating it again is wasted CPU.
      */
-    private static void addFileToZip(File rootDir, File file, ZipOutputStream zos) throws IOException {
-        String relativePath = rootDir.toURI().relativize(file.toURI()).getPath();
-        ZipEntry zipEntry = new ZipEntry(relativePath);
-        zos.putNextEntry(zipEntry);
+    public static boolean isPrecompressed(String filename) {
+        String lower = filename.toLowerCase();
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") || lower.endsWith(".png")
+                || lower.endsWith(".tif") || lower.endsWith(".tiff");
+    }
 
-        try (FileInputStream fis = new FileInputStream(file)) {
-            byte[] buffer = new byte[1024];
+    private static long computeCrc(File file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream fis = new FileInputStream(file)) {
             int length;
             while ((length = fis.read(buffer)) > 0) {
-                zos.write(buffer, 0, length);
+                crc.update(buffer, 0, length);
             }
         }
-
-        zos.closeEntry();
+        return crc.getValue();
     }
 }